@@ -19,15 +19,27 @@
 -- 主要表结构：
 -- - hotd_systems: 系统/租户表
 -- - hotd_system_configs: 系统配置表（聚类参数、定时任务等）
--- - hotd_articles: 文章表（添加了 system_id 和 is_shared 字段）
+-- - hotd_articles: 文章表（添加了 system_id 和 is_shared 字段，按 create_time 周分区）
 -- - hotd_article_systems: 文章共享关联表（支持文章被多个系统使用）
 -- - hotd_event_snapshot: 热点事件快照表（添加了 system_id 字段）
 -- - hotd_event_articles: 热点事件-文章关联表（添加了 system_id 字段）
+-- - hotd_event_snapshot_current: 每个系统当前快照版本的指针
+-- - hotd_embedding_cache: 按内容哈希缓存的向量（转载、重复文章不再重复向量化）
+-- - hotd_embedding_cache_stats: SQL 向量化函数累计的向量缓存查询数和命中数
+-- - hotd_embedding_backlog: 每个系统待向量化/向量化失败的文章数（触发器增量维护）
+-- - hotd_job_runs: 应用内调度器的定时任务运行记录（耗时、结果）
+-- - hotd_ingest_counters: 每个系统累计完成向量化的文章数（触发器增量维护，按变化量触发快照刷新）
 --
 -- 主要函数：
 -- - hotd_event_clusters_by_system(): 按系统聚类函数
 -- - hotd_refresh_snapshot_by_system(): 按系统刷新快照函数
+-- - hotd_gc_event_snapshots(): 清理过期快照版本
+-- - hotd_maintain_article_partitions(): 创建未来的文章分区、删除过期分区
 -- - hotd_embed_articles_batch_by_system(): 按系统向量化函数
+-- - hotd_content_hash(): 向量缓存使用的文本内容哈希
+-- - hotd_apply_embeddings(): 一条语句批量写回向量
+-- - hotd_rebuild_embedding_backlog(): 重新统计向量化积压计数
+-- - hotd_expire_embedding_backlog(): 超过向量化时间范围（60 天）仍未完成的文章标记为 expired，不再计入积压
 -- - hotd_get_system_id(): 根据系统代码获取系统ID
 -- - hotd_system_exists(): 检查系统是否存在
 -- - hotd_migrate_to_default_system(): 数据迁移函数
@@ -173,13 +185,212 @@ CREATE TABLE IF NOT EXISTS hotd_article_systems (
     system_id     BIGINT NOT NULL,
     create_time   TIMESTAMPTZ DEFAULT now() NOT NULL,
     PRIMARY KEY (article_id, system_id),
-    FOREIGN KEY (article_id) REFERENCES hotd_articles(id) ON DELETE CASCADE,
+    -- 文章表按时间分区后主键包含 create_time，无法再被 article_id 外键引用；删除分区时由 hotd_drop_article_partitions 同步清理
     FOREIGN KEY (system_id) REFERENCES hotd_systems(id) ON DELETE CASCADE
 );
 
 CREATE INDEX IF NOT EXISTS hotd_idx_article_systems_system ON hotd_article_systems(system_id);
 CREATE INDEX IF NOT EXISTS hotd_idx_article_systems_article ON hotd_article_systems(article_id);
 
+-- =====================================================
+-- 4.1 文章表按时间分区（按周，UTC 周一 00:00 为边界）
+-- =====================================================
+-- 聚类、向量化等热路径都按 create_time 过滤，分区后只扫描最近的分区；保留期以外的数据按分区整体 DROP，
+-- 每个分区有自己的 HNSW 索引（在分区表上建索引时自动为每个分区创建）。
+-- 默认分区 hotd_articles_default 接住没有对应周分区的文章（分区维护停止、导入很早或很晚的文章时写入不会失败），
+-- 分区维护时再把其中的文章移到对应的周分区
+
+-- 创建覆盖 [p_from, p_to) 的周分区（已存在的跳过），返回新建分区数
+-- 默认分区中已有该周的文章时，先把这些文章移到新表再挂载为分区（直接 PARTITION OF 会因默认分区的约束冲突而失败）；
+-- 移动直接操作分区，不触发 hotd_articles 上的语句级触发器，积压计数不变
+CREATE OR REPLACE FUNCTION hotd_create_article_partitions(p_from TIMESTAMPTZ, p_to TIMESTAMPTZ)
+RETURNS INT LANGUAGE plpgsql AS $$
+DECLARE
+    v_start   TIMESTAMPTZ := date_trunc('week', p_from, 'UTC');
+    v_end     TIMESTAMPTZ;
+    v_name    TEXT;
+    v_created INT := 0;
+    v_moved   BIGINT;
+BEGIN
+    WHILE v_start < p_to LOOP
+        v_end := v_start + INTERVAL '7 days';
+        v_name := 'hotd_articles_p' || to_char(v_start AT TIME ZONE 'UTC', 'YYYYMMDD');
+        IF to_regclass(v_name) IS NULL THEN
+            IF to_regclass('hotd_articles_default') IS NOT NULL
+               AND EXISTS (SELECT 1 FROM hotd_articles_default WHERE create_time >= v_start AND create_time < v_end) THEN
+                EXECUTE format('CREATE TABLE %I (LIKE hotd_articles INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+                EXECUTE format($sql$
+                    WITH moved AS (
+                        DELETE FROM hotd_articles_default
+                        WHERE create_time >= %L AND create_time < %L
+                        RETURNING *
+                    )
+                    INSERT INTO %I SELECT * FROM moved
+                $sql$, v_start, v_end, v_name);
+                GET DIAGNOSTICS v_moved = ROW_COUNT;
+                EXECUTE format('ALTER TABLE hotd_articles ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               v_name, v_start, v_end);
+                RAISE NOTICE '[HotD] 已从默认分区移出 % 篇文章到分区 %', v_moved, v_name;
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF hotd_articles FOR VALUES FROM (%L) TO (%L)',
+                               v_name, v_start, v_end);
+            END IF;
+            v_created := v_created + 1;
+        END IF;
+        v_start := v_end;
+    END LOOP;
+    RETURN v_created;
+END;
+$$;
+
+-- 删除整体早于 now() - p_retention 的分区，返回删除的分区数
+-- 分区表不能被外键引用，删除前同步清理共享关联、热点文章关联，并扣减向量化积压计数（DROP 不触发删除触发器）
+CREATE OR REPLACE FUNCTION hotd_drop_article_partitions(p_retention INTERVAL)
+RETURNS INT LANGUAGE plpgsql AS $$
+DECLARE
+    v_part    RECORD;
+    v_dropped INT := 0;
+BEGIN
+    FOR v_part IN
+        SELECT c.oid::regclass AS rel,
+               substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''([^'']+)''\)')::timestamptz AS upper_bound
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'hotd_articles'::regclass
+    LOOP
+        CONTINUE WHEN v_part.upper_bound IS NULL OR v_part.upper_bound > now() - p_retention;
+
+        EXECUTE format('DELETE FROM hotd_article_systems s USING %s p WHERE s.article_id = p.id', v_part.rel);
+        EXECUTE format('DELETE FROM hotd_event_articles ea USING %s p WHERE ea.article_id = p.id', v_part.rel);
+        IF to_regclass('hotd_embedding_backlog') IS NOT NULL THEN
+            EXECUTE format($sql$
+                UPDATE hotd_embedding_backlog b
+                SET pending = b.pending - d.pending, failed = b.failed - d.failed, update_time = now()
+                FROM (
+                    SELECT COALESCE(system_id, 0) AS system_id,
+                           count(*) FILTER (WHERE embedding_state = 'pending') AS pending,
+                           count(*) FILTER (WHERE embedding_state = 'failed') AS failed
+                    FROM %s
+                    WHERE embedding_state <> 'done' AND NOT COALESCE(is_deleted, false)
+                    GROUP BY 1
+                ) d
+                WHERE b.system_id = d.system_id
+            $sql$, v_part.rel);
+        END IF;
+
+        EXECUTE format('DROP TABLE %s', v_part.rel);
+        v_dropped := v_dropped + 1;
+        RAISE NOTICE '[HotD] 已删除过期文章分区 %（上界 %）', v_part.rel, v_part.upper_bound;
+    END LOOP;
+    RETURN v_dropped;
+END;
+$$;
+
+-- 分区维护：把默认分区中的文章移到对应的周分区，提前创建未来 p_weeks_ahead 周的分区，
+-- p_retention 不为空时删除过期分区，并把滑出向量化时间范围的积压文章标记为 expired（应用定时调用）
+-- 多个节点同时调用时只有取得事务级 advisory lock 的一个执行，其余直接返回（避免并发 DDL 互相阻塞、死锁）
+CREATE OR REPLACE FUNCTION hotd_maintain_article_partitions(
+    p_weeks_ahead INT      DEFAULT 4,
+    p_retention   INTERVAL DEFAULT NULL
+)
+RETURNS void LANGUAGE plpgsql AS $$
+DECLARE
+    v_min TIMESTAMPTZ;
+    v_max TIMESTAMPTZ;
+BEGIN
+    -- 'hd' 前缀 + 3，与应用内任务租约的 advisory lock 键同一命名空间
+    IF NOT pg_try_advisory_xact_lock(x'68640003'::int, 0) THEN
+        RAISE NOTICE '[HotD] 其他会话正在维护文章分区，跳过';
+        RETURN;
+    END IF;
+    IF to_regclass('hotd_articles_default') IS NOT NULL THEN
+        SELECT min(create_time), max(create_time) INTO v_min, v_max FROM hotd_articles_default;
+        IF v_min IS NOT NULL THEN
+            PERFORM hotd_create_article_partitions(v_min, v_max + INTERVAL '1 microsecond');
+        END IF;
+    END IF;
+    PERFORM hotd_create_article_partitions(now() - INTERVAL '7 days', now() + make_interval(weeks => p_weeks_ahead));
+    IF p_retention IS NOT NULL THEN
+        PERFORM hotd_drop_article_partitions(p_retention);
+    END IF;
+    IF to_regprocedure('hotd_expire_embedding_backlog(interval)') IS NOT NULL THEN
+        PERFORM hotd_expire_embedding_backlog();
+    END IF;
+END;
+$$;
+
+-- 把未分区的文章表转换为分区表（只执行一次）：
+-- 原表改名后按原表结构创建分区表，建好覆盖所有数据的分区并复制数据，再按原定义重建索引、外键和触发器
+DO $$
+DECLARE
+    v_index_defs   TEXT[];
+    v_fk_defs      TEXT[];
+    v_trigger_defs TEXT[];
+    v_def          TEXT;
+    v_min_time     TIMESTAMPTZ;
+    v_ref          RECORD;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'hotd_articles'::regclass) <> 'r' THEN
+        RETURN;
+    END IF;
+    RAISE NOTICE '正在把 hotd_articles 转换为按周分区表...';
+
+    -- 记录原表的普通索引、外键和触发器定义（主键、唯一索引不能建在不含分区键的列上）
+    SELECT array_agg(pg_get_indexdef(i.indexrelid)) INTO v_index_defs
+    FROM pg_index i
+    WHERE i.indrelid = 'hotd_articles'::regclass AND NOT i.indisunique;
+    SELECT array_agg(format('ALTER TABLE hotd_articles ADD CONSTRAINT %I %s', conname, pg_get_constraintdef(oid)))
+    INTO v_fk_defs
+    FROM pg_constraint
+    WHERE conrelid = 'hotd_articles'::regclass AND contype = 'f';
+    SELECT array_agg(pg_get_triggerdef(oid)) INTO v_trigger_defs
+    FROM pg_trigger
+    WHERE tgrelid = 'hotd_articles'::regclass AND NOT tgisinternal;
+
+    -- 其他表引用文章ID的外键无法指向分区表，改由分区清理函数维护
+    FOR v_ref IN
+        SELECT conrelid::regclass AS rel, conname FROM pg_constraint
+        WHERE confrelid = 'hotd_articles'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', v_ref.rel, v_ref.conname);
+    END LOOP;
+
+    ALTER TABLE hotd_articles RENAME TO hotd_articles_unpartitioned;
+    ALTER TABLE hotd_articles_unpartitioned RENAME CONSTRAINT hotd_articles_pkey TO hotd_articles_unpartitioned_pkey;
+    FOR v_ref IN
+        SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE i.indrelid = 'hotd_articles_unpartitioned'::regclass AND NOT i.indisunique
+    LOOP
+        EXECUTE format('DROP INDEX %I', v_ref.relname);
+    END LOOP;
+
+    CREATE TABLE hotd_articles (LIKE hotd_articles_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+        PARTITION BY RANGE (create_time);
+    ALTER TABLE hotd_articles ADD PRIMARY KEY (id, create_time);
+    ALTER SEQUENCE hotd_articles_id_seq OWNED BY hotd_articles.id;
+
+    SELECT min(create_time) INTO v_min_time FROM hotd_articles_unpartitioned;
+    PERFORM hotd_create_article_partitions(COALESCE(v_min_time, now()) , now() + INTERVAL '4 weeks');
+    INSERT INTO hotd_articles SELECT * FROM hotd_articles_unpartitioned;
+
+    FOREACH v_def IN ARRAY COALESCE(v_index_defs, '{}') LOOP
+        EXECUTE v_def;
+    END LOOP;
+    FOREACH v_def IN ARRAY COALESCE(v_fk_defs, '{}') LOOP
+        EXECUTE v_def;
+    END LOOP;
+    FOREACH v_def IN ARRAY COALESCE(v_trigger_defs, '{}') LOOP
+        EXECUTE v_def;
+    END LOOP;
+
+    -- 依赖原表的视图随原表删除，由本脚本后面的 CREATE OR REPLACE VIEW 重建
+    DROP TABLE hotd_articles_unpartitioned CASCADE;
+    RAISE NOTICE 'hotd_articles 已转换为分区表';
+END $$;
+
+-- 默认分区：没有对应周分区的文章写入这里，不会因为分区缺失而写入失败
+CREATE TABLE IF NOT EXISTS hotd_articles_default PARTITION OF hotd_articles DEFAULT;
+
 -- =====================================================
 -- 5. 修改热点事件快照表，添加系统ID
 -- =====================================================
@@ -291,6 +502,22 @@ END $$;
 
 CREATE INDEX IF NOT EXISTS hotd_idx_event_articles_system ON hotd_event_articles(system_id);
 
+-- 当前快照指针：每次刷新写入新版本（snapshot_time），提交前切换指针，读取方只看指针指向的版本；
+-- 旧版本由 hotd_gc_event_snapshots() 异步清理
+CREATE TABLE IF NOT EXISTS hotd_event_snapshot_current (
+    system_id      BIGINT       NOT NULL PRIMARY KEY,
+    snapshot_time  TIMESTAMPTZ  NOT NULL,
+    update_time    TIMESTAMPTZ  DEFAULT now() NOT NULL,
+    FOREIGN KEY (system_id) REFERENCES hotd_systems(id) ON DELETE CASCADE
+);
+
+INSERT INTO hotd_event_snapshot_current (system_id, snapshot_time)
+SELECT system_id, MAX(snapshot_time)
+FROM hotd_event_snapshot
+WHERE system_id IS NOT NULL
+GROUP BY system_id
+ON CONFLICT (system_id) DO NOTHING;
+
 -- =====================================================
 -- 7. 多系统支持的聚类函数（按系统ID聚类）
 -- =====================================================
@@ -429,12 +656,8 @@ BEGIN
         RAISE EXCEPTION '系统配置不存在: system_id=%', p_system_id;
     END IF;
     
-    -- 删除该系统的旧快照
-    DELETE FROM hotd_event_articles WHERE system_id = p_system_id;
-    DELETE FROM hotd_event_snapshot WHERE system_id = p_system_id;
-    
-    -- 插入新快照
-    WITH ranked_events AS (
+    -- 插入新版本的快照和文章关联关系（旧版本保留，由 hotd_gc_event_snapshots 清理）（聚类只执行一次，两张表使用同一份结果）
+    WITH ranked_events AS MATERIALIZED (
         SELECT 
             row_number() OVER (ORDER BY hot_score DESC) AS rn,
             cluster_id, title, article_count, total_weight, hot_score, sample_titles, article_ids
@@ -445,28 +668,16 @@ BEGIN
             v_config.default_min_samples
         )
         LIMIT v_config.snapshot_limit
-    )
-    INSERT INTO hotd_event_snapshot (
-        snapshot_time, rank_no, system_id, cluster_id, title, 
-        article_count, total_weight, hot_score, sample_titles
-    )
-    SELECT 
-        v_snapshot_ts, rn, p_system_id, cluster_id, title,
-        article_count, total_weight, hot_score, sample_titles
-    FROM ranked_events;
-    
-    -- 插入文章关联关系
-    WITH ranked_events AS (
-        SELECT 
-            row_number() OVER (ORDER BY hot_score DESC) AS rn,
-            cluster_id, article_ids
-        FROM hotd_event_clusters_by_system(
-            p_system_id,
-            v_config.default_hours,
-            v_config.default_eps,
-            v_config.default_min_samples
+    ),
+    inserted_snapshot AS (
+        INSERT INTO hotd_event_snapshot (
+            snapshot_time, rank_no, system_id, cluster_id, title, 
+            article_count, total_weight, hot_score, sample_titles, hours_window
         )
-        LIMIT v_config.snapshot_limit
+        SELECT 
+            v_snapshot_ts, rn, p_system_id, cluster_id, title,
+            article_count, total_weight, hot_score, sample_titles, v_config.default_hours
+        FROM ranked_events
     )
     INSERT INTO hotd_event_articles (
         snapshot_time, rank_no, system_id, cluster_id, article_id, article_weight
@@ -481,6 +692,33 @@ BEGIN
     FROM ranked_events re
     CROSS JOIN LATERAL unnest(re.article_ids) AS unnested(article_id)
     LEFT JOIN hotd_articles a ON a.id = unnested.article_id;
+    
+    -- 切换当前快照指针（并发刷新时不回退到更旧的版本）
+    INSERT INTO hotd_event_snapshot_current (system_id, snapshot_time, update_time)
+    VALUES (p_system_id, v_snapshot_ts, now())
+    ON CONFLICT (system_id) DO UPDATE
+    SET snapshot_time = EXCLUDED.snapshot_time, update_time = now()
+    WHERE hotd_event_snapshot_current.snapshot_time < EXCLUDED.snapshot_time;
+    
+    -- 通知应用节点重新加载快照缓存（随事务提交发送）
+    PERFORM pg_notify('hotd_snapshot_refreshed', p_system_id::text);
+END;
+$$;
+
+-- 清理过期的快照版本（当前版本始终保留），返回删除的快照行数
+CREATE OR REPLACE FUNCTION hotd_gc_event_snapshots(p_retention INTERVAL DEFAULT INTERVAL '1 hour')
+RETURNS BIGINT LANGUAGE plpgsql AS $$
+DECLARE
+    v_deleted BIGINT;
+BEGIN
+    DELETE FROM hotd_event_snapshot es
+    WHERE es.snapshot_time < now() - p_retention
+      AND NOT EXISTS (
+        SELECT 1 FROM hotd_event_snapshot_current c
+        WHERE c.system_id = es.system_id AND c.snapshot_time = es.snapshot_time
+      );
+    GET DIAGNOSTICS v_deleted = ROW_COUNT;
+    RETURN v_deleted;
 END;
 $$;
 
@@ -557,10 +795,11 @@ RETURNS void LANGUAGE plpython3u AS $$
     if p_system_id is not None:
         query = """
             SELECT DISTINCT a.id, 
-                   a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, '') AS text
+                   a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, '') AS text,
+                   hotd_content_hash(a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, '')) AS content_hash
             FROM hotd_articles a
             LEFT JOIN hotd_article_systems as_rel ON a.id = as_rel.article_id
-            WHERE (a.embedding IS NULL OR a.embedding = '[0]'::vector)
+            WHERE a.embedding_state IN ('pending', 'failed')
               AND a.create_time > now() - INTERVAL '60 days'
               AND a.is_deleted = false
               AND (
@@ -573,9 +812,10 @@ RETURNS void LANGUAGE plpython3u AS $$
     else:
         query = """
             SELECT id, 
-                   title || '。' || COALESCE(summary, '') || '。' || COALESCE(full_text, '') AS text
+                   title || '。' || COALESCE(summary, '') || '。' || COALESCE(full_text, '') AS text,
+                   hotd_content_hash(title || '。' || COALESCE(summary, '') || '。' || COALESCE(full_text, '')) AS content_hash
             FROM hotd_articles
-            WHERE (embedding IS NULL OR embedding = '[0]'::vector)
+            WHERE embedding_state IN ('pending', 'failed')
               AND create_time > now() - INTERVAL '60 days'
             LIMIT 1500
         """
@@ -586,8 +826,35 @@ RETURNS void LANGUAGE plpython3u AS $$
     if not rows:
         return
 
-    texts = [r['text'] for r in rows]
-    ids   = [r['id']   for r in rows]
+    total = len(rows)
+    model_key = 'BAAI/bge-large-zh-v1.5'
+
+    # 先用内容哈希缓存回填（转载、重复的文章不再调用模型）
+    cached = plpy.execute(plpy.prepare("""
+        UPDATE hotd_articles a
+        SET embedding = c.embedding, embedding_state = 'done', embedded_at = now()
+        FROM hotd_embedding_cache c
+        WHERE a.id = ANY($1)
+          AND c.model_name = $2
+          AND c.content_hash = hotd_content_hash(a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, ''))
+        RETURNING a.id
+    """, ["bigint[]", "text"]), [[r['id'] for r in rows], model_key])
+    cached_ids = set(r['id'] for r in cached)
+    plpy.execute(plpy.prepare("SELECT hotd_record_embedding_cache_stats($1, $2, $3)", ["text", "bigint", "bigint"]),
+                 ['hotd_embed_articles_batch_by_system', len(rows), len(cached_ids)])
+    rows = [r for r in rows if r['id'] not in cached_ids]
+
+    # 同一批次内内容相同的文章只向量化一次
+    unique = {}
+    for r in rows:
+        unique.setdefault(r['content_hash'], r['text'])
+    hashes = list(unique.keys())
+    texts  = [unique[h] for h in hashes]
+
+    system_info = f"system_id={p_system_id}" if p_system_id is not None else "all systems"
+    if not rows:
+        plpy.notice(f"[HotD] 本次 {total} 条全部命中向量缓存（{system_info}）")
+        return
 
     # 批量编码 + 归一化
     embeddings = model.encode(
@@ -596,16 +863,23 @@ RETURNS void LANGUAGE plpython3u AS $$
         normalize_embeddings=True,
         show_progress_bar=False
     )
-
-    update_plan = plpy.prepare(
-        "UPDATE hotd_articles SET embedding = $2 WHERE id = $1",
-        ["bigint", "vector"]
-    )
-    for iid, vec in zip(ids, embeddings):
-        plpy.execute(update_plan, [iid, list(vec.astype('float32'))])
-
-    system_info = f"system_id={p_system_id}" if p_system_id is not None else "all systems"
-    plpy.notice(f"[HotD] 本次成功向量化 {len(rows)} 条（{system_info}），使用模型：bge-large-zh-v1.5")
+    literals = ['[' + ','.join(str(float(x)) for x in vec.astype('float32')) + ']' for vec in embeddings]
+
+    # 写入内容哈希缓存（一条语句）
+    plpy.execute(plpy.prepare("""
+        INSERT INTO hotd_embedding_cache (content_hash, model_name, embedding)
+        SELECT v.content_hash, $3, v.embedding::vector
+        FROM unnest($1::text[], $2::text[]) AS v(content_hash, embedding)
+        ON CONFLICT (content_hash, model_name) DO NOTHING
+    """, ["text[]", "text[]", "text"]), [hashes, literals, model_key])
+
+    # 整批一条语句写回
+    literal_by_hash = dict(zip(hashes, literals))
+    plpy.execute(plpy.prepare("SELECT hotd_apply_embeddings($1, $2)", ["bigint[]", "text[]"]),
+                 [[r['id'] for r in rows], [literal_by_hash[r['content_hash']] for r in rows]])
+
+    plpy.notice(f"[HotD] 本次向量化 {total} 条（{system_info}），缓存命中 {len(cached_ids)} 条，"
+                f"调用模型 {len(texts)} 条，使用模型：bge-large-zh-v1.5")
 $$;
 
 -- =====================================================
@@ -644,10 +918,11 @@ RETURNS void LANGUAGE plpython3u AS $$
     if p_system_id is not None:
         query = """
             SELECT DISTINCT a.id, 
-                   a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, '') AS text
+                   a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, '') AS text,
+                   hotd_content_hash(a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, '')) AS content_hash
             FROM hotd_articles a
             LEFT JOIN hotd_article_systems as_rel ON a.id = as_rel.article_id
-            WHERE (a.embedding IS NULL OR a.embedding = '[0]'::vector)
+            WHERE a.embedding_state IN ('pending', 'failed')
               AND a.create_time > now() - INTERVAL '60 days'
               AND a.is_deleted = false
               AND (
@@ -660,9 +935,10 @@ RETURNS void LANGUAGE plpython3u AS $$
     else:
         query = """
             SELECT id, 
-                   title || '。' || COALESCE(summary, '') || '。' || COALESCE(full_text, '') AS text
+                   title || '。' || COALESCE(summary, '') || '。' || COALESCE(full_text, '') AS text,
+                   hotd_content_hash(title || '。' || COALESCE(summary, '') || '。' || COALESCE(full_text, '')) AS content_hash
             FROM hotd_articles
-            WHERE (embedding IS NULL OR embedding = '[0]'::vector)
+            WHERE embedding_state IN ('pending', 'failed')
               AND create_time > now() - INTERVAL '60 days'
             LIMIT 1500
         """
@@ -674,11 +950,37 @@ RETURNS void LANGUAGE plpython3u AS $$
         plpy.notice(f"[HotD] 没有待向量化的文章，系统ID: {p_system_id if p_system_id else 'ALL'}")
         return
 
-    texts = [r['text'] for r in rows]
-    ids   = [r['id']   for r in rows]
+    # 缓存按实际请求的模型区分；未指定模型时由服务端使用其默认模型（未知），按接口地址区分，
+    # 避免与本地 SentenceTransformer 函数的 'BAAI/bge-large-zh-v1.5' 向量混用
+    model_key = p_model_name if p_model_name else 'api:' + p_api_url
+
+    # 先用内容哈希缓存回填（转载、重复的文章不再调用模型）
+    cached = plpy.execute(plpy.prepare("""
+        UPDATE hotd_articles a
+        SET embedding = c.embedding, embedding_state = 'done', embedded_at = now()
+        FROM hotd_embedding_cache c
+        WHERE a.id = ANY($1)
+          AND c.model_name = $2
+          AND c.content_hash = hotd_content_hash(a.title || '。' || COALESCE(a.summary, '') || '。' || COALESCE(a.full_text, ''))
+        RETURNING a.id
+    """, ["bigint[]", "text"]), [[r['id'] for r in rows], model_key])
+    cached_ids = set(r['id'] for r in cached)
+    plpy.execute(plpy.prepare("SELECT hotd_record_embedding_cache_stats($1, $2, $3)", ["text", "bigint", "bigint"]),
+                 ['hotd_embed_articles_batch_by_system_via_api', len(rows), len(cached_ids)])
+    rows = [r for r in rows if r['id'] not in cached_ids]
+
+    # 同一批次内内容相同的文章只向量化一次
+    unique = {}
+    for r in rows:
+        unique.setdefault(r['content_hash'], r['text'])
+    hashes = list(unique.keys())
+    texts  = [unique[h] for h in hashes]
     total = len(texts)
+    if total == 0:
+        plpy.notice(f"[HotD] 本次 {len(cached_ids)} 条全部命中向量缓存，系统ID: {p_system_id if p_system_id else 'ALL'}")
+        return
     
-    plpy.notice(f"[HotD] 开始通过 HTTP API 向量化 {total} 条文章，系统ID: {p_system_id if p_system_id else 'ALL'}，API: {p_api_url}")
+    plpy.notice(f"[HotD] 开始通过 HTTP API 向量化 {total} 条文章（缓存命中 {len(cached_ids)} 条），系统ID: {p_system_id if p_system_id else 'ALL'}，API: {p_api_url}")
 
     # 准备请求头
     headers = {
@@ -693,7 +995,6 @@ RETURNS void LANGUAGE plpython3u AS $$
     
     for i in range(0, total, p_batch_size):
         batch_texts = texts[i:i + p_batch_size]
-        batch_ids = ids[i:i + p_batch_size]
         
         # 构建请求体
         request_body = {
@@ -749,20 +1050,23 @@ RETURNS void LANGUAGE plpython3u AS $$
     if len(all_embeddings) != total:
         plpy.error(f"向量化数量不匹配: 期望 {total}，实际 {len(all_embeddings)}")
 
-    # 更新数据库
-    update_plan = plpy.prepare(
-        "UPDATE hotd_articles SET embedding = $2 WHERE id = $1",
-        ["bigint", "vector"]
-    )
-    
-    for iid, vec in zip(ids, all_embeddings):
-        # 确保向量是列表格式，并转换为 float32
-        if not isinstance(vec, list):
-            vec = list(vec)
-        vec_float32 = [float(x) for x in vec]
-        plpy.execute(update_plan, [iid, vec_float32])
-
-    plpy.notice(f"[HotD] 本次成功通过 HTTP API 向量化 {total} 条文章，系统ID: {p_system_id if p_system_id else 'ALL'}，API: {p_api_url}")
+    # 确保向量是列表格式，并转换为 float
+    literals = ['[' + ','.join(str(float(x)) for x in vec) + ']' for vec in all_embeddings]
+
+    # 写入内容哈希缓存（一条语句）
+    plpy.execute(plpy.prepare("""
+        INSERT INTO hotd_embedding_cache (content_hash, model_name, embedding)
+        SELECT v.content_hash, $3, v.embedding::vector
+        FROM unnest($1::text[], $2::text[]) AS v(content_hash, embedding)
+        ON CONFLICT (content_hash, model_name) DO NOTHING
+    """, ["text[]", "text[]", "text"]), [hashes, literals, model_key])
+
+    # 更新数据库（整批一条语句）
+    literal_by_hash = dict(zip(hashes, literals))
+    plpy.execute(plpy.prepare("SELECT hotd_apply_embeddings($1, $2)", ["bigint[]", "text[]"]),
+                 [[r['id'] for r in rows], [literal_by_hash[r['content_hash']] for r in rows]])
+
+    plpy.notice(f"[HotD] 本次成功通过 HTTP API 向量化 {len(rows)} 条文章（调用 API {total} 条），系统ID: {p_system_id if p_system_id else 'ALL'}，API: {p_api_url}")
 $$;
 
 -- =====================================================
@@ -866,7 +1170,8 @@ SELECT
     es.hot_score,
     es.sample_titles
 FROM hotd_systems s
-JOIN hotd_event_snapshot es ON s.id = es.system_id
+JOIN hotd_event_snapshot_current c ON c.system_id = s.id
+JOIN hotd_event_snapshot es ON es.system_id = c.system_id AND es.snapshot_time = c.snapshot_time
 WHERE s.is_active = true
 ORDER BY s.system_code, es.snapshot_time DESC, es.rank_no;
 
@@ -964,3 +1269,338 @@ ON CONFLICT (system_id) DO NOTHING;
 -- =====================================================
 -- 注意：如果 pg_cron 扩展已加载，可以取消下面的注释来自动设置定时任务
 -- SELECT hotd_setup_system_cron_jobs();
+
+-- =====================================================
+-- 20. 应用内聚类参数（hotdog.clustering.engine=java/incremental 时使用）
+-- =====================================================
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS clustering_parallelism INT;  -- 聚类并行度（NULL 表示使用应用默认值）
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS hnsw_enabled BOOLEAN DEFAULT false;  -- 使用 HNSW 近似 DBSCAN
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS hnsw_m INT DEFAULT 16;               -- HNSW 每层连接数
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS hnsw_ef_search INT DEFAULT 64;       -- HNSW 查询宽度
+
+-- =====================================================
+-- 21. 向量缓存（按文本内容哈希，转载、重复文章复用已有向量）
+-- =====================================================
+-- 内容哈希：折叠空白后取 md5，向量化函数和应用内流水线都通过此函数计算，保证一致
+CREATE OR REPLACE FUNCTION hotd_content_hash(p_text TEXT)
+RETURNS TEXT LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+    SELECT md5(regexp_replace(btrim(p_text), '\s+', ' ', 'g'));
+$$;
+
+CREATE TABLE IF NOT EXISTS hotd_embedding_cache (
+    content_hash  TEXT          NOT NULL,
+    model_name    TEXT          NOT NULL,   -- 不同模型的向量互不复用
+    embedding     vector(1024)  NOT NULL,
+    create_time   TIMESTAMPTZ   DEFAULT now() NOT NULL,
+    PRIMARY KEY (content_hash, model_name)
+);
+
+CREATE INDEX IF NOT EXISTS hotd_idx_embedding_cache_time ON hotd_embedding_cache(create_time);
+
+-- SQL 向量化函数的缓存命中统计（按函数累计，应用内流水线的命中在进程内统计，两者都由 /api/embedding/cache/stats 返回）
+CREATE TABLE IF NOT EXISTS hotd_embedding_cache_stats (
+    source       TEXT         NOT NULL PRIMARY KEY,   -- 调用缓存的 SQL 函数名
+    lookups      BIGINT       DEFAULT 0 NOT NULL,     -- 查询缓存的文章数
+    hits         BIGINT       DEFAULT 0 NOT NULL,     -- 命中缓存的文章数
+    update_time  TIMESTAMPTZ  DEFAULT now() NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION hotd_record_embedding_cache_stats(p_source TEXT, p_lookups BIGINT, p_hits BIGINT)
+RETURNS void LANGUAGE sql AS $$
+    INSERT INTO hotd_embedding_cache_stats (source, lookups, hits, update_time)
+    VALUES (p_source, p_lookups, p_hits, now())
+    ON CONFLICT (source) DO UPDATE
+    SET lookups = hotd_embedding_cache_stats.lookups + EXCLUDED.lookups,
+        hits = hotd_embedding_cache_stats.hits + EXCLUDED.hits,
+        update_time = now();
+$$;
+
+-- =====================================================
+-- 22. 批量写回向量（向量化函数和应用内流水线共用）
+-- =====================================================
+-- 整批向量用一条 UPDATE ... FROM unnest 写回，代替逐行 UPDATE；p_embeddings 为 pgvector 文本格式 '[x,y,...]'
+CREATE OR REPLACE FUNCTION hotd_apply_embeddings(p_ids BIGINT[], p_embeddings TEXT[])
+RETURNS INT LANGUAGE plpgsql AS $$
+DECLARE
+    v_updated INT;
+BEGIN
+    UPDATE hotd_articles a
+    SET embedding = v.embedding::vector, embedding_state = 'done', embedded_at = now()
+    FROM unnest(p_ids, p_embeddings) AS v(id, embedding)
+    WHERE a.id = v.id;
+    GET DIAGNOSTICS v_updated = ROW_COUNT;
+    RETURN v_updated;
+END;
+$$;
+
+-- =====================================================
+-- 23. 向量化状态与积压计数
+-- =====================================================
+-- embedding_state: pending（待向量化）、done（已向量化）、failed（应用内向量化失败，定时任务会重试）、
+-- expired（超过向量化时间范围 60 天仍未完成，向量化任务不再处理，不计入积压）
+ALTER TABLE hotd_articles ADD COLUMN IF NOT EXISTS embedding_state VARCHAR(16) DEFAULT 'pending' NOT NULL;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'hotd_articles_embedding_state_check') THEN
+        ALTER TABLE hotd_articles
+        ADD CONSTRAINT hotd_articles_embedding_state_check
+        CHECK (embedding_state IN ('pending', 'done', 'failed', 'expired'));
+        -- 首次添加时回填已有向量的文章
+        UPDATE hotd_articles SET embedding_state = 'done'
+        WHERE embedding IS NOT NULL AND embedding <> '[0]'::vector;
+    ELSIF NOT EXISTS (SELECT 1 FROM pg_constraint
+                      WHERE conname = 'hotd_articles_embedding_state_check'
+                        AND pg_get_constraintdef(oid) LIKE '%expired%') THEN
+        -- 早期版本的约束没有 expired 状态
+        ALTER TABLE hotd_articles
+        DROP CONSTRAINT hotd_articles_embedding_state_check,
+        ADD CONSTRAINT hotd_articles_embedding_state_check
+        CHECK (embedding_state IN ('pending', 'done', 'failed', 'expired'));
+    END IF;
+END $$;
+
+-- 只索引积压中的文章（pending / failed），向量化任务扫描待处理文章不再全表扫描，已过期的文章不占索引
+DROP INDEX IF EXISTS hotd_idx_articles_embedding_pending;  -- 早期版本的索引也包含 expired 文章
+CREATE INDEX IF NOT EXISTS hotd_idx_articles_embedding_backlog ON hotd_articles(create_time DESC)
+    WHERE embedding_state IN ('pending', 'failed');
+
+-- 每个系统的积压计数：只统计向量化时间范围内的 pending / failed 文章（system_id = 0 表示未归属系统的文章，
+-- 不含已删除文章）；超过 60 天的文章由 hotd_expire_embedding_backlog() 标记为 expired 后从计数中减去
+CREATE TABLE IF NOT EXISTS hotd_embedding_backlog (
+    system_id    BIGINT       NOT NULL PRIMARY KEY,
+    pending      BIGINT       DEFAULT 0 NOT NULL,
+    failed       BIGINT       DEFAULT 0 NOT NULL,
+    update_time  TIMESTAMPTZ  DEFAULT now() NOT NULL
+);
+
+-- 语句级触发器：按系统汇总本条语句带来的增减，每个系统只更新一次计数行（COPY、批量 UPDATE 同样生效）
+CREATE OR REPLACE FUNCTION hotd_track_embedding_backlog()
+RETURNS TRIGGER LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO hotd_embedding_backlog (system_id, pending, failed, update_time)
+        SELECT COALESCE(system_id, 0),
+               count(*) FILTER (WHERE embedding_state = 'pending' AND NOT COALESCE(is_deleted, false)),
+               count(*) FILTER (WHERE embedding_state = 'failed' AND NOT COALESCE(is_deleted, false)),
+               now()
+        FROM new_rows
+        GROUP BY 1
+        HAVING count(*) FILTER (WHERE embedding_state IN ('pending', 'failed') AND NOT COALESCE(is_deleted, false)) > 0
+        ORDER BY 1
+        ON CONFLICT (system_id) DO UPDATE
+        SET pending = hotd_embedding_backlog.pending + EXCLUDED.pending,
+            failed = hotd_embedding_backlog.failed + EXCLUDED.failed,
+            update_time = now();
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO hotd_embedding_backlog (system_id, pending, failed, update_time)
+        SELECT system_id, sum(pending), sum(failed), now()
+        FROM (
+            SELECT COALESCE(system_id, 0) AS system_id,
+                   (embedding_state = 'pending' AND NOT COALESCE(is_deleted, false))::int AS pending,
+                   (embedding_state = 'failed' AND NOT COALESCE(is_deleted, false))::int AS failed
+            FROM new_rows
+            UNION ALL
+            SELECT COALESCE(system_id, 0),
+                   -(embedding_state = 'pending' AND NOT COALESCE(is_deleted, false))::int,
+                   -(embedding_state = 'failed' AND NOT COALESCE(is_deleted, false))::int
+            FROM old_rows
+        ) delta
+        GROUP BY system_id
+        HAVING sum(pending) <> 0 OR sum(failed) <> 0
+        ORDER BY system_id
+        ON CONFLICT (system_id) DO UPDATE
+        SET pending = hotd_embedding_backlog.pending + EXCLUDED.pending,
+            failed = hotd_embedding_backlog.failed + EXCLUDED.failed,
+            update_time = now();
+    ELSE
+        UPDATE hotd_embedding_backlog b
+        SET pending = b.pending - d.pending, failed = b.failed - d.failed, update_time = now()
+        FROM (
+            SELECT COALESCE(system_id, 0) AS system_id,
+                   count(*) FILTER (WHERE embedding_state = 'pending' AND NOT COALESCE(is_deleted, false)) AS pending,
+                   count(*) FILTER (WHERE embedding_state = 'failed' AND NOT COALESCE(is_deleted, false)) AS failed
+            FROM old_rows
+            GROUP BY 1
+        ) d
+        WHERE b.system_id = d.system_id AND (d.pending > 0 OR d.failed > 0);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS hotd_trg_embedding_backlog_insert ON hotd_articles;
+CREATE TRIGGER hotd_trg_embedding_backlog_insert
+    AFTER INSERT ON hotd_articles REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION hotd_track_embedding_backlog();
+
+DROP TRIGGER IF EXISTS hotd_trg_embedding_backlog_update ON hotd_articles;
+CREATE TRIGGER hotd_trg_embedding_backlog_update
+    AFTER UPDATE ON hotd_articles REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION hotd_track_embedding_backlog();
+
+DROP TRIGGER IF EXISTS hotd_trg_embedding_backlog_delete ON hotd_articles;
+CREATE TRIGGER hotd_trg_embedding_backlog_delete
+    AFTER DELETE ON hotd_articles REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION hotd_track_embedding_backlog();
+
+-- 按当前数据重新统计积压计数（初始化或计数怀疑漂移时调用）
+CREATE OR REPLACE FUNCTION hotd_rebuild_embedding_backlog()
+RETURNS void LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM hotd_expire_embedding_backlog();
+    LOCK TABLE hotd_embedding_backlog IN EXCLUSIVE MODE;
+    DELETE FROM hotd_embedding_backlog;
+    INSERT INTO hotd_embedding_backlog (system_id, pending, failed, update_time)
+    SELECT COALESCE(system_id, 0),
+           count(*) FILTER (WHERE embedding_state = 'pending'),
+           count(*) FILTER (WHERE embedding_state = 'failed'),
+           now()
+    FROM hotd_articles
+    WHERE embedding_state IN ('pending', 'failed') AND NOT COALESCE(is_deleted, false)
+    GROUP BY 1;
+END;
+$$;
+
+-- 把超过向量化时间范围仍未完成的文章标记为 expired（向量化函数只处理最近 60 天的文章），
+-- 计数由更新触发器同步减去；返回标记的文章数
+CREATE OR REPLACE FUNCTION hotd_expire_embedding_backlog(p_max_age INTERVAL DEFAULT INTERVAL '60 days')
+RETURNS INT LANGUAGE plpgsql AS $$
+DECLARE
+    v_expired INT;
+BEGIN
+    UPDATE hotd_articles
+    SET embedding_state = 'expired'
+    WHERE embedding_state IN ('pending', 'failed')
+      AND create_time <= now() - p_max_age;
+    GET DIAGNOSTICS v_expired = ROW_COUNT;
+    RETURN v_expired;
+END;
+$$;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM hotd_embedding_backlog) THEN
+        PERFORM hotd_rebuild_embedding_backlog();
+    END IF;
+END $$;
+
+-- =====================================================
+-- 24. 文章游标分页索引（GET /api/articles/cursor 按 (create_time, id) 倒序翻页）
+-- =====================================================
+CREATE INDEX IF NOT EXISTS hotd_idx_articles_time_id ON hotd_articles(create_time DESC, id DESC) WHERE is_deleted = false;
+
+-- =====================================================
+-- 25. 文章关键词检索（标题+摘要全文索引，中文由 pg_jieba 分词）
+-- =====================================================
+-- 检索配置 hotd_search：有 pg_jieba 时复制其检索模式配置 jiebaqry（切分更细，短词也能命中），
+-- 否则退化为 simple（只按空白和标点切分，中文检索效果有限）
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'hotd_search') THEN
+        BEGIN
+            CREATE EXTENSION IF NOT EXISTS pg_jieba;
+        EXCEPTION WHEN OTHERS THEN
+            RAISE NOTICE 'pg_jieba 不可用，关键词检索使用 simple 配置: %', SQLERRM;
+        END;
+        IF EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'jiebaqry') THEN
+            CREATE TEXT SEARCH CONFIGURATION hotd_search (COPY = jiebaqry);
+        ELSE
+            CREATE TEXT SEARCH CONFIGURATION hotd_search (COPY = simple);
+        END IF;
+    END IF;
+END $$;
+
+-- 标题权重 A、摘要权重 B，ts_rank_cd 排序时标题命中优先；生成列随写入（包括 COPY）自动维护
+ALTER TABLE hotd_articles ADD COLUMN IF NOT EXISTS search_tsv tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('hotd_search', COALESCE(title, '')), 'A') ||
+        setweight(to_tsvector('hotd_search', COALESCE(summary, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS hotd_idx_articles_search ON hotd_articles USING gin (search_tsv);
+
+-- =====================================================
+-- 26. 定时任务运行记录（应用内调度器 hotdog.scheduler.enabled=true 时写入）
+-- =====================================================
+CREATE TABLE IF NOT EXISTS hotd_job_runs (
+    id            BIGSERIAL PRIMARY KEY,
+    system_id     BIGINT NOT NULL,
+    job_type      VARCHAR(16) NOT NULL,          -- CLUSTER（快照刷新）/ EMBED（向量化）
+    start_time    TIMESTAMPTZ NOT NULL,
+    duration_ms   BIGINT NOT NULL,
+    success       BOOLEAN NOT NULL,
+    error         TEXT
+);
+
+CREATE INDEX IF NOT EXISTS hotd_idx_job_runs_system ON hotd_job_runs(system_id, start_time DESC);
+CREATE INDEX IF NOT EXISTS hotd_idx_job_runs_time ON hotd_job_runs(start_time);
+
+-- =====================================================
+-- 27. 按变化量触发快照刷新（应用内调度器 hotdog.scheduler.enabled=true 时使用）
+-- =====================================================
+-- refresh_min_new_articles、refresh_min_growth_pct 任一大于 0 时不再按 clustering_cron 刷新，而是在距上次刷新
+-- 超过 refresh_min_interval_seconds 且新增已向量化文章数达到阈值（或占上次窗口文章数的百分比达到阈值）时刷新，
+-- 超过 refresh_max_interval_seconds 无论变化多少都刷新一次
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS refresh_min_new_articles INT;              -- 新增文章数阈值（NULL/0 不按数量触发）
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS refresh_min_growth_pct FLOAT;              -- 窗口增长百分比阈值（NULL/0 不按比例触发）
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS refresh_min_interval_seconds INT DEFAULT 60;    -- 两次刷新的最小间隔
+ALTER TABLE hotd_system_configs ADD COLUMN IF NOT EXISTS refresh_max_interval_seconds INT DEFAULT 3600;  -- 两次刷新的最大间隔
+
+-- 累计完成向量化的文章数（只增不减，调度器用两次读数之差作为新增量）；
+-- system_id = -1 为全局共享文章（对所有系统可见），0 为未归属系统的文章
+CREATE TABLE IF NOT EXISTS hotd_ingest_counters (
+    system_id    BIGINT       NOT NULL PRIMARY KEY,
+    embedded     BIGINT       DEFAULT 0 NOT NULL,
+    update_time  TIMESTAMPTZ  DEFAULT now() NOT NULL
+);
+
+-- 语句级触发器：统计本条语句中变为 done 的文章，每个系统只更新一次计数行
+CREATE OR REPLACE FUNCTION hotd_track_ingest_counters()
+RETURNS TRIGGER LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO hotd_ingest_counters (system_id, embedded, update_time)
+        SELECT CASE WHEN n.is_shared AND n.system_id IS NOT NULL THEN -1 ELSE COALESCE(n.system_id, 0) END,
+               count(*), now()
+        FROM new_rows n
+        WHERE n.embedding_state = 'done' AND NOT COALESCE(n.is_deleted, false)
+        GROUP BY 1
+        ORDER BY 1
+        ON CONFLICT (system_id) DO UPDATE
+        SET embedded = hotd_ingest_counters.embedded + EXCLUDED.embedded,
+            update_time = now();
+    ELSE
+        INSERT INTO hotd_ingest_counters (system_id, embedded, update_time)
+        SELECT CASE WHEN n.is_shared AND n.system_id IS NOT NULL THEN -1 ELSE COALESCE(n.system_id, 0) END,
+               count(*), now()
+        FROM new_rows n
+        JOIN old_rows o ON o.id = n.id
+        WHERE n.embedding_state = 'done' AND o.embedding_state <> 'done' AND NOT COALESCE(n.is_deleted, false)
+        GROUP BY 1
+        ORDER BY 1
+        ON CONFLICT (system_id) DO UPDATE
+        SET embedded = hotd_ingest_counters.embedded + EXCLUDED.embedded,
+            update_time = now();
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS hotd_trg_ingest_counters_insert ON hotd_articles;
+CREATE TRIGGER hotd_trg_ingest_counters_insert
+    AFTER INSERT ON hotd_articles REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION hotd_track_ingest_counters();
+
+DROP TRIGGER IF EXISTS hotd_trg_ingest_counters_update ON hotd_articles;
+CREATE TRIGGER hotd_trg_ingest_counters_update
+    AFTER UPDATE ON hotd_articles REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION hotd_track_ingest_counters();
+
+-- =====================================================
+-- 28. 向量化完成时间（应用内窗口向量存储按完成时间增量加载）
+-- =====================================================
+-- 向量写回时（hotd_apply_embeddings、缓存回填）设置为当前事务时间；之前已向量化的文章为 NULL，由全量加载覆盖
+ALTER TABLE hotd_articles ADD COLUMN IF NOT EXISTS embedded_at TIMESTAMPTZ;
+
+CREATE INDEX IF NOT EXISTS hotd_idx_articles_embedded_at ON hotd_articles(embedded_at) WHERE embedded_at IS NOT NULL;
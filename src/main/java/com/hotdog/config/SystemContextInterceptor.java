@@ -1,7 +1,7 @@
 package com.hotdog.config;
 
 import com.hotdog.model.System;
-import com.hotdog.repository.SystemRepository;
+import com.hotdog.service.SystemCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -13,14 +13,14 @@ import java.util.Optional;
 
 /**
  * 系统上下文拦截器
- * 从请求头或参数中提取系统信息，设置到 ThreadLocal
+ * 从请求头或参数中提取系统信息，设置到 ThreadLocal（系统从 SystemCache 查询，不访问数据库）
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class SystemContextInterceptor implements HandlerInterceptor {
     
-    private final SystemRepository systemRepository;
+    private final SystemCache systemCache;
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -37,7 +37,7 @@ public class SystemContextInterceptor implements HandlerInterceptor {
         if (systemCode == null && systemIdParam != null) {
             try {
                 Long systemId = Long.parseLong(systemIdParam);
-                Optional<System> system = systemRepository.findById(systemId);
+                Optional<System> system = systemCache.findById(systemId);
                 if (system.isPresent()) {
                     systemCode = system.get().getSystemCode();
                 }
@@ -48,7 +48,7 @@ public class SystemContextInterceptor implements HandlerInterceptor {
         
         // 设置系统上下文
         if (systemCode != null && !systemCode.isEmpty()) {
-            Optional<System> system = systemRepository.findBySystemCode(systemCode);
+            Optional<System> system = systemCache.findByCode(systemCode);
             if (system.isPresent() && system.get().getIsActive()) {
                 SystemContext.setSystemCode(systemCode);
                 SystemContext.setSystemId(system.get().getId());
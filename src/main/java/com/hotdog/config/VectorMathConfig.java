@@ -0,0 +1,26 @@
+package com.hotdog.config;
+
+import com.hotdog.service.VectorMath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 向量点积内核配置
+ * hotdog.vector.kernel：auto（默认，模块可用时用 SIMD）、simd、scalar
+ */
+@Configuration
+@Slf4j
+public class VectorMathConfig {
+
+    @Bean
+    public VectorMath vectorMath(@Value("${hotdog.vector.kernel:auto}") String kernel) {
+        if ("simd".equalsIgnoreCase(kernel) && !VectorMath.simdAvailable()) {
+            log.warn("jdk.incubator.vector 模块未加载（需要 --add-modules jdk.incubator.vector），退回标量内核");
+        }
+        VectorMath vectorMath = VectorMath.create(kernel);
+        log.info("向量点积内核: {}", vectorMath.name());
+        return vectorMath;
+    }
+}
@@ -1,10 +1,16 @@
 package com.hotdog.controller;
 
 import com.hotdog.dto.ArticleCreateDTO;
+import com.hotdog.dto.ArticleCursorPageDTO;
+import com.hotdog.dto.ArticleIngestResultDTO;
 import com.hotdog.dto.ArticleQueryDTO;
 import com.hotdog.dto.ArticleShareDTO;
+import com.hotdog.dto.SemanticSearchDTO;
+import com.hotdog.dto.SimilarArticleDTO;
 import com.hotdog.model.Article;
 import com.hotdog.service.ArticleService;
+import com.hotdog.service.ArticleStreamIngestor;
+import com.hotdog.service.SemanticSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,11 +19,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 文章管理API
@@ -29,6 +38,8 @@ import java.util.List;
 public class ArticleController {
     
     private final ArticleService articleService;
+    private final ArticleStreamIngestor articleStreamIngestor;
+    private final SemanticSearchService semanticSearchService;
     
     /**
      * 创建文章
@@ -50,10 +61,24 @@ public class ArticleController {
         return ResponseEntity.ok(articles);
     }
     
+    /**
+     * 流式批量导入文章（NDJSON，每行一篇，COPY 写入）
+     */
+    @Operation(summary = "流式批量导入文章",
+        description = "请求体为 NDJSON（每行一个文章对象），边解析边按分块 COPY 写入，只返回计数和ID区间；"
+            + "自动关联当前系统（通过 X-System-Code 请求头指定）")
+    @PostMapping(value = "/stream", consumes = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE,
+        MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ArticleIngestResultDTO> streamArticles(InputStream body) {
+        ArticleIngestResultDTO result = articleStreamIngestor.ingest(body);
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * 查询文章列表（支持按系统过滤）
      */
-    @Operation(summary = "查询文章列表", description = "支持按系统过滤、分页、来源、权重等条件筛选")
+    @Operation(summary = "查询文章列表",
+        description = "支持按系统过滤、分页、来源、权重范围等条件筛选；指定 keyword 时检索标题和摘要，按相关度排序")
     @GetMapping
     public ResponseEntity<Page<Article>> queryArticles(
             @Parameter(description = "系统ID，用于过滤文章") @RequestParam(required = false) Long systemId,
@@ -74,6 +99,31 @@ public class ArticleController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * 游标分页查询文章列表（精简字段，不统计总数）
+     */
+    @Operation(summary = "游标分页查询文章列表",
+        description = "按创建时间倒序，返回不含正文的精简字段和下一页游标 nextCursor；不执行 count 查询，"
+            + "深翻页与首页代价相同。首次请求不传 cursor，之后传入上一页返回的 nextCursor")
+    @GetMapping("/cursor")
+    public ResponseEntity<ArticleCursorPageDTO> queryArticlesByCursor(
+            @Parameter(description = "系统ID，用于过滤文章") @RequestParam(required = false) Long systemId,
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) BigDecimal minWeight,
+            @RequestParam(required = false) BigDecimal maxWeight,
+            @Parameter(description = "标题/摘要关键词（只筛选，不改变时间排序）") @RequestParam(required = false) String keyword,
+            @Parameter(description = "上一页返回的 nextCursor") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，最大200") @RequestParam(defaultValue = "20") int size) {
+        ArticleQueryDTO query = new ArticleQueryDTO();
+        query.setSource(source);
+        query.setMinWeight(minWeight);
+        query.setMaxWeight(maxWeight);
+        query.setKeyword(keyword);
+        
+        ArticleCursorPageDTO result = articleService.queryArticlesByCursor(query, systemId, cursor, size);
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * 根据ID查询文章
      */
@@ -83,6 +133,43 @@ public class ArticleController {
         return ResponseEntity.ok(article);
     }
     
+    /**
+     * 语义相似文章
+     */
+    @Operation(summary = "语义相似文章",
+        description = "按文章向量在系统可见范围内检索最相近的文章（HNSW 索引），结果短期缓存")
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<SimilarArticleDTO>> findSimilarArticles(
+            @PathVariable Long id,
+            @Parameter(description = "系统ID，用于过滤文章") @RequestParam(required = false) Long systemId,
+            @Parameter(description = "返回条数") @RequestParam(required = false) Integer k,
+            @Parameter(description = "HNSW 检索候选数（hnsw.ef_search）") @RequestParam(required = false) Integer efSearch) {
+        List<SimilarArticleDTO> result = semanticSearchService.findSimilar(id, systemId, k, efSearch);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 语义检索（文本 -> 最相近的文章）
+     */
+    @Operation(summary = "语义检索",
+        description = "将检索文本向量化后在系统可见范围内检索最相近的文章（HNSW 索引），结果短期缓存")
+    @PostMapping("/search/semantic")
+    public ResponseEntity<List<SimilarArticleDTO>> semanticSearch(
+            @Valid @RequestBody SemanticSearchDTO dto,
+            @Parameter(description = "系统ID，用于过滤文章") @RequestParam(required = false) Long systemId) {
+        List<SimilarArticleDTO> result = semanticSearchService.searchByText(
+            dto.getText(), systemId, dto.getK(), dto.getEfSearch());
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 语义检索统计（查询数、结果缓存命中率）
+     */
+    @GetMapping("/search/semantic/stats")
+    public ResponseEntity<Map<String, Object>> getSemanticSearchStats() {
+        return ResponseEntity.ok(semanticSearchService.getStats());
+    }
+    
     /**
      * 更新文章权重
      */
@@ -1,13 +1,17 @@
 package com.hotdog.controller;
 
+import com.hotdog.service.EmbeddingCache;
+import com.hotdog.service.EmbeddingPipeline;
 import com.hotdog.service.EmbeddingService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,6 +24,8 @@ import java.util.Map;
 public class EmbeddingController {
     
     private final EmbeddingService embeddingService;
+    private final EmbeddingPipeline embeddingPipeline;
+    private final EmbeddingCache embeddingCache;
     
     /**
      * 触发批量向量化
@@ -36,7 +42,7 @@ public class EmbeddingController {
     /**
      * 获取待向量化的文章数量
      */
-    @Operation(summary = "获取待向量化数量", description = "查询当前待向量化的文章数量")
+    @Operation(summary = "获取待向量化数量", description = "查询当前待向量化的文章数量（最近 60 天内，不含已标记 expired 的文章）")
     @GetMapping("/pending-count")
     public ResponseEntity<Map<String, Long>> getPendingEmbeddingCount() {
         Long count = embeddingService.getPendingEmbeddingCount();
@@ -44,4 +50,41 @@ public class EmbeddingController {
         response.put("pendingCount", count);
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * 获取各系统的向量化积压
+     */
+    @Operation(summary = "获取各系统向量化积压", description = "按系统返回待向量化（pending）和向量化失败（failed）的文章数，计数由触发器增量维护，查询代价为常数；创建超过 60 天仍未完成的文章标记为 expired，不计入")
+    @GetMapping("/backlog")
+    public ResponseEntity<List<Map<String, Object>>> getEmbeddingBacklog(
+            @Parameter(description = "系统ID，为空时返回所有系统") @RequestParam(required = false) Long systemId) {
+        return ResponseEntity.ok(embeddingService.getEmbeddingBacklog(systemId));
+    }
+    
+    /**
+     * 获取应用内向量化流水线状态
+     */
+    @Operation(summary = "获取向量化流水线状态", description = "队列长度、已向量化/失败数量等（hotdog.embedding.pipeline.enabled 开启时生效）")
+    @GetMapping("/pipeline")
+    public ResponseEntity<Map<String, Object>> getPipelineStats() {
+        return ResponseEntity.ok(embeddingPipeline.getStats());
+    }
+    
+    /**
+     * 获取向量缓存命中率
+     */
+    @Operation(summary = "获取向量缓存命中率", description = "按内容哈希的向量缓存（内存 LRU + hotd_embedding_cache 表）的查询次数、命中次数和命中率，sqlFunctions 为 SQL 向量化函数累计的命中统计")
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(embeddingCache.getStats());
+    }
+    
+    /**
+     * 获取向量批量写回的耗时统计
+     */
+    @Operation(summary = "获取向量写回耗时", description = "应用内批量写回向量（一条语句写回整批）的批次数、行数、平均/最大耗时和吞吐")
+    @GetMapping("/write-stats")
+    public ResponseEntity<Map<String, Object>> getWriteStats() {
+        return ResponseEntity.ok(embeddingService.getWriteStats());
+    }
 }
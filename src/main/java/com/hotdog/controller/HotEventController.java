@@ -4,14 +4,21 @@ import com.hotdog.dto.HotEventResponseDTO;
 import com.hotdog.model.Article;
 import com.hotdog.model.HotEvent;
 import com.hotdog.service.HotEventService;
+import com.hotdog.service.RealtimeClusteringCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 热点事件API
@@ -23,11 +30,13 @@ import java.util.List;
 public class HotEventController {
     
     private final HotEventService hotEventService;
+    private final RealtimeClusteringCache realtimeClusteringCache;
     
     /**
      * 获取实时热点事件（调用聚类函数，较慢但最新，支持多系统）
      */
-    @Operation(summary = "获取实时热点事件", description = "调用聚类函数实时计算热点事件，较慢但数据最新")
+    @Operation(summary = "获取实时热点事件",
+        description = "调用聚类引擎实时计算热点事件；相同参数的并发请求共享一次计算，结果缓存到系统有新文章写入或完成向量化为止")
     @GetMapping("/realtime")
     public ResponseEntity<List<HotEventResponseDTO>> getRealTimeHotEvents(
             @Parameter(description = "系统ID，用于按系统查询") @RequestParam(required = false) Long systemId,
@@ -40,16 +49,26 @@ public class HotEventController {
         return ResponseEntity.ok(events);
     }
     
+    /**
+     * 实时聚类缓存统计（命中、合并、实际计算次数）
+     */
+    @GetMapping("/realtime/stats")
+    public ResponseEntity<Map<String, Object>> getRealTimeStats() {
+        return ResponseEntity.ok(realtimeClusteringCache.getStats());
+    }
+    
     /**
      * 获取热点事件快照（高性能，适合高并发，支持多系统）
      */
-    @Operation(summary = "获取热点事件快照", description = "从快照表查询热点事件，高性能，适合高并发场景")
-    @GetMapping("/snapshot")
-    public ResponseEntity<List<HotEvent>> getHotEventsFromSnapshot(
+    @Operation(summary = "获取热点事件快照", description = "从内存快照缓存返回预序列化的热点事件，高性能，适合高并发场景")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+        array = @ArraySchema(schema = @Schema(implementation = HotEvent.class))))
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getHotEventsFromSnapshot(
             @Parameter(description = "系统ID，用于按系统查询") @RequestParam(required = false) Long systemId,
             @RequestParam(defaultValue = "20") Integer limit) {
-        List<HotEvent> events = hotEventService.getHotEventsFromSnapshot(systemId, limit);
-        return ResponseEntity.ok(events);
+        byte[] json = hotEventService.getHotEventsSnapshotJson(systemId, limit);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
     }
     
     /**
@@ -77,14 +96,17 @@ public class HotEventController {
     /**
      * 获取实时热点事件的原始文章列表（根据聚类ID，支持多系统）
      */
+    @Operation(summary = "获取实时热点事件的原始文章列表",
+        description = "传入实时接口返回的 resultToken 时直接取回同一次聚类的簇成员，不重新聚类")
     @GetMapping("/realtime/{clusterId}/articles")
     public ResponseEntity<List<Article>> getRealTimeHotEventArticles(
             @PathVariable Long clusterId,
             @RequestParam(required = false) Long systemId,
             @RequestParam(required = false) Integer hours,
+            @Parameter(description = "实时热点事件中的 resultToken") @RequestParam(required = false) String token,
             @RequestParam(defaultValue = "50") Integer limit) {
         List<Article> articles = hotEventService
-            .getRealTimeHotEventArticles(systemId, clusterId, hours, limit);
+            .getRealTimeHotEventArticles(systemId, clusterId, hours, token, limit);
         return ResponseEntity.ok(articles);
     }
 }
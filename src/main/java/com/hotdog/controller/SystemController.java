@@ -2,8 +2,10 @@ package com.hotdog.controller;
 
 import com.hotdog.dto.SystemConfigDTO;
 import com.hotdog.dto.SystemCreateDTO;
+import com.hotdog.dto.SystemUpdateDTO;
 import com.hotdog.model.System;
 import com.hotdog.model.SystemConfig;
+import com.hotdog.service.RefreshScheduler;
 import com.hotdog.service.SystemService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 系统管理API
@@ -24,6 +27,7 @@ import java.util.List;
 public class SystemController {
     
     private final SystemService systemService;
+    private final RefreshScheduler refreshScheduler;
     
     /**
      * 创建系统
@@ -68,6 +72,28 @@ public class SystemController {
         return ResponseEntity.ok(system);
     }
     
+    /**
+     * 更新系统
+     */
+    @Operation(summary = "更新系统", description = "更新系统名称、描述或启用状态，启用状态变化时同步定时任务")
+    @PutMapping("/{id}")
+    public ResponseEntity<System> updateSystem(
+            @PathVariable Long id,
+            @RequestBody SystemUpdateDTO dto) {
+        System system = systemService.updateSystem(id, dto);
+        return ResponseEntity.ok(system);
+    }
+    
+    /**
+     * 停用系统
+     */
+    @Operation(summary = "停用系统", description = "停用系统并删除其定时任务")
+    @PostMapping("/{id}/deactivate")
+    public ResponseEntity<System> deactivateSystem(@PathVariable Long id) {
+        System system = systemService.deactivateSystem(id);
+        return ResponseEntity.ok(system);
+    }
+    
     /**
      * 更新系统配置
      */
@@ -88,6 +114,25 @@ public class SystemController {
         return ResponseEntity.ok().build();
     }
     
+    /**
+     * 应用内调度器状态（每个系统每个任务的下次触发时间、运行次数和耗时）
+     */
+    @Operation(summary = "调度器状态", description = "hotdog.scheduler.enabled=true 时由应用内调度器执行快照刷新和向量化")
+    @GetMapping("/scheduler")
+    public ResponseEntity<Map<String, Object>> getSchedulerStats() {
+        return ResponseEntity.ok(refreshScheduler.getStats());
+    }
+    
+    /**
+     * 系统最近的定时任务运行记录
+     */
+    @GetMapping("/{id}/job-runs")
+    public ResponseEntity<List<Map<String, Object>>> getJobRuns(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(refreshScheduler.getRecentRuns(id, limit));
+    }
+    
     /**
      * 为所有系统设置定时任务
      */
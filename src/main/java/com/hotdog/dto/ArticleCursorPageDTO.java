@@ -0,0 +1,20 @@
+package com.hotdog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果（按 create_time DESC, id DESC，不统计总数）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleCursorPageDTO {
+    private List<ArticleSummaryDTO> items = new ArrayList<>();
+    private String nextCursor;   // 下一页游标，没有更多数据时为 null
+    private boolean hasMore;
+}
@@ -0,0 +1,35 @@
+package com.hotdog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式批量导入结果（只返回计数和ID区间，不回显文章）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleIngestResultDTO {
+    private long received;                           // 解析出的文章数
+    private long inserted;                           // 写入的文章数
+    private long rejected;                           // 校验失败被跳过的文章数
+    private List<Integer> rejectedLines = new ArrayList<>();  // 校验失败的行号（从 1 开始，最多返回前 1000 个）
+    private List<IdRange> idRanges = new ArrayList<>();  // 写入文章的ID区间（按写入顺序，闭区间）
+    private long elapsedMs;
+    private String error;                            // 中途失败时的原因，之前的分块已提交
+
+    /**
+     * ID 闭区间
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IdRange {
+        private long from;
+        private long to;
+    }
+}
@@ -16,5 +16,5 @@ public class ArticleQueryDTO {
     private String source;
     private BigDecimal minWeight;
     private BigDecimal maxWeight;
-    private String keyword; // 标题关键词搜索
+    private String keyword; // 标题/摘要关键词检索（全文索引，按相关度排序）
 }
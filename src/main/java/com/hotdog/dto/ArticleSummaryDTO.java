@@ -0,0 +1,25 @@
+package com.hotdog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 文章列表项（精简投影，不含正文和向量）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSummaryDTO {
+    private Long id;
+    private Long systemId;
+    private Boolean isShared;
+    private String title;
+    private String summary;
+    private BigDecimal weight;
+    private LocalDateTime createTime;
+    private String source;
+}
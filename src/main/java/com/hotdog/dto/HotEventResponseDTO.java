@@ -22,4 +22,5 @@ public class HotEventResponseDTO {
     private BigDecimal hotScore;
     private String sampleTitles;
     private List<Long> articleIds; // 文章ID列表
+    private String resultToken;    // 实时聚类结果令牌，/realtime/{clusterId}/articles 凭此定位本次结果中的簇
 }
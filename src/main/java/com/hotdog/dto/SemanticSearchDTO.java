@@ -0,0 +1,22 @@
+package com.hotdog.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 语义检索请求
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SemanticSearchDTO {
+    
+    @NotBlank(message = "检索文本不能为空")
+    private String text;
+    
+    private Integer k;          // 返回条数，默认 hotdog.similarity.default-k
+    
+    private Integer efSearch;   // HNSW 检索候选数（hnsw.ef_search），越大召回越高、越慢
+}
@@ -0,0 +1,26 @@
+package com.hotdog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 语义相似文章（精简字段 + 余弦相似度）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarArticleDTO {
+    private Long id;
+    private Long systemId;
+    private Boolean isShared;
+    private String title;
+    private String summary;
+    private BigDecimal weight;
+    private LocalDateTime createTime;
+    private String source;
+    private Double similarity;   // 余弦相似度（1 - 余弦距离）
+}
@@ -18,4 +18,12 @@ public class SystemConfigDTO {
     private String clusteringCron = "*/12 * * * *";
     private Integer maxArticlesLimit = 80000;
     private Integer snapshotLimit = 100;
+    private Integer clusteringParallelism;  // 应用内聚类的并行度，为空时使用 hotdog.clustering.parallelism
+    private Boolean hnswEnabled;            // 使用 HNSW 近似 DBSCAN（大窗口）
+    private Integer hnswM;                  // HNSW 每层连接数，越大召回越高、内存越大
+    private Integer hnswEfSearch;           // HNSW 查询宽度，越大召回越高、越慢
+    private Integer refreshMinNewArticles;      // 新增已向量化文章达到该数时刷新快照（大于 0 时代替 clusteringCron）
+    private Float refreshMinGrowthPct;          // 新增文章占上次窗口的百分比达到该值时刷新快照（大于 0 时代替 clusteringCron）
+    private Integer refreshMinIntervalSeconds;  // 按变化量刷新的最小间隔
+    private Integer refreshMaxIntervalSeconds;  // 按变化量刷新的最大间隔（无变化也刷新）
 }
@@ -0,0 +1,17 @@
+package com.hotdog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 系统更新DTO（字段为空时不修改）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SystemUpdateDTO {
+    private String systemName;
+    private String description;
+    private Boolean isActive;
+}
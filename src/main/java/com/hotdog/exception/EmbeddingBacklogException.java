@@ -0,0 +1,11 @@
+package com.hotdog.exception;
+
+/**
+ * 向量化流水线积压（队列已满），写入方应稍后重试
+ */
+public class EmbeddingBacklogException extends RuntimeException {
+
+    public EmbeddingBacklogException(String message) {
+        super(message);
+    }
+}
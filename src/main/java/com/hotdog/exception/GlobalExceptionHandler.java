@@ -48,6 +48,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.notFound().build();
     }
     
+    /**
+     * 向量化队列已满：返回 503，提示写入方稍后重试
+     */
+    @ExceptionHandler(EmbeddingBacklogException.class)
+    public ResponseEntity<Map<String, String>> handleEmbeddingBacklogException(EmbeddingBacklogException ex) {
+        log.warn("向量化队列积压: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").body(error);
+    }
+    
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException ex) {
         log.error("运行时异常", ex);
@@ -13,6 +13,8 @@ import java.time.LocalDateTime;
 
 /**
  * 文章实体
+ * 不映射 embedding 列：加载、更新文章不读写 4KB 的向量（pgvector 行外存储，不查询即不读取）；
+ * 向量只由聚类（ArticleWindowLoader、WindowVectorStore）和相似度查询经 JDBC 读取，经 hotd_apply_embeddings 写入
  */
 @Entity
 @Table(name = "hotd_articles", indexes = {
@@ -56,15 +58,12 @@ public class Article {
     @Type(JsonBinaryType.class)
     private ArticleMetadata attr;
     
-    @Column(columnDefinition = "vector(1024)")
-    @JsonIgnore
-    private float[] embedding;
-    
     @Column(name = "is_deleted")
     private Boolean isDeleted = false;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "system_id", insertable = false, updatable = false)
+    @JsonIgnore
     private System system;
     
     @PrePersist
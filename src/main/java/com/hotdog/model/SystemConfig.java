@@ -47,6 +47,30 @@ public class SystemConfig {
     @Column(name = "snapshot_limit")
     private Integer snapshotLimit = 100;
     
+    @Column(name = "clustering_parallelism")
+    private Integer clusteringParallelism;
+    
+    @Column(name = "hnsw_enabled")
+    private Boolean hnswEnabled = false;
+    
+    @Column(name = "hnsw_m")
+    private Integer hnswM = 16;
+    
+    @Column(name = "hnsw_ef_search")
+    private Integer hnswEfSearch = 64;
+    
+    @Column(name = "refresh_min_new_articles")
+    private Integer refreshMinNewArticles;
+    
+    @Column(name = "refresh_min_growth_pct", columnDefinition = "FLOAT")
+    private Float refreshMinGrowthPct;
+    
+    @Column(name = "refresh_min_interval_seconds")
+    private Integer refreshMinIntervalSeconds = 60;
+    
+    @Column(name = "refresh_max_interval_seconds")
+    private Integer refreshMaxIntervalSeconds = 3600;
+    
     @Column(name = "create_time", nullable = false, updatable = false)
     private LocalDateTime createTime;
     
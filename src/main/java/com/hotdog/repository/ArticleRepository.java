@@ -30,15 +30,17 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     Page<Article> findByMinWeight(@Param("minWeight") BigDecimal minWeight, Pageable pageable);
     
     /**
-     * 根据来源和权重查询文章
+     * 根据来源和权重范围查询文章
      */
     @Query("SELECT a FROM Article a WHERE " +
            "(:source IS NULL OR a.source = :source) AND " +
            "(:minWeight IS NULL OR a.weight >= :minWeight) AND " +
+           "(:maxWeight IS NULL OR a.weight <= :maxWeight) AND " +
            "a.isDeleted = false")
-    Page<Article> findBySourceAndMinWeight(
+    Page<Article> findBySourceAndWeightRange(
         @Param("source") String source,
         @Param("minWeight") BigDecimal minWeight,
+        @Param("maxWeight") BigDecimal maxWeight,
         Pageable pageable
     );
     
@@ -50,11 +52,9 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     void updateWeight(@Param("id") Long id, @Param("weight") BigDecimal weight);
     
     /**
-     * 查询待向量化的文章数量
+     * 查询待向量化的文章数量（读取触发器维护的 hotd_embedding_backlog 计数，不扫描文章表，不含已标记 expired 的文章）
      */
-    @Query(value = "SELECT COUNT(*) FROM hotd_articles " +
-           "WHERE (embedding IS NULL OR embedding = '[0]'::vector) " +
-           "AND create_time > now() - INTERVAL '60 days'", nativeQuery = true)
+    @Query(value = "SELECT COALESCE(SUM(pending), 0) FROM hotd_embedding_backlog", nativeQuery = true)
     Long countPendingEmbedding();
     
     /**
@@ -70,11 +70,13 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
            "WHERE a.isDeleted = false " +
            "AND (a.systemId = :systemId OR as_rel.systemId = :systemId OR (a.isShared = true AND a.systemId IS NOT NULL)) " +
            "AND (:source IS NULL OR a.source = :source) " +
-           "AND (:minWeight IS NULL OR a.weight >= :minWeight)")
+           "AND (:minWeight IS NULL OR a.weight >= :minWeight) " +
+           "AND (:maxWeight IS NULL OR a.weight <= :maxWeight)")
     Page<Article> findBySystemIdAndFilters(
         @Param("systemId") Long systemId,
         @Param("source") String source,
         @Param("minWeight") BigDecimal minWeight,
+        @Param("maxWeight") BigDecimal maxWeight,
         Pageable pageable
     );
 }
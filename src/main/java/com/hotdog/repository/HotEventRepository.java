@@ -45,20 +45,20 @@ public interface HotEventRepository extends JpaRepository<HotEvent, HotEventSnap
     List<HotEvent> findBySnapshotTimeOrderByRankNoAsc(LocalDateTime snapshotTime);
     
     /**
-     * 按系统查询最新的热点事件快照
+     * 按系统查询当前版本的热点事件快照（通过 hotd_event_snapshot_current 指针定位版本）
      */
-    @Query(value = "SELECT h.* FROM hotd_event_snapshot h " +
-           "WHERE h.system_id = ?1 " +
-           "AND h.snapshot_time = (SELECT MAX(snapshot_time) FROM hotd_event_snapshot WHERE system_id = ?1) " +
+    @Query(value = "SELECT h.* FROM hotd_event_snapshot_current c " +
+           "JOIN hotd_event_snapshot h ON h.system_id = c.system_id AND h.snapshot_time = c.snapshot_time " +
+           "WHERE c.system_id = ?1 " +
            "ORDER BY h.rank_no ASC LIMIT ?2", nativeQuery = true)
     List<HotEvent> findLatestSnapshotBySystem(Long systemId, int limit);
     
     /**
-     * 按系统查询最新的热点事件快照（不限制数量）
+     * 按系统查询当前版本的热点事件快照（不限制数量）
      */
-    @Query(value = "SELECT h.* FROM hotd_event_snapshot h " +
-           "WHERE h.system_id = ?1 " +
-           "AND h.snapshot_time = (SELECT MAX(snapshot_time) FROM hotd_event_snapshot WHERE system_id = ?1) " +
+    @Query(value = "SELECT h.* FROM hotd_event_snapshot_current c " +
+           "JOIN hotd_event_snapshot h ON h.system_id = c.system_id AND h.snapshot_time = c.snapshot_time " +
+           "WHERE c.system_id = ?1 " +
            "ORDER BY h.rank_no ASC", nativeQuery = true)
     List<HotEvent> findLatestSnapshotBySystem(Long systemId);
 }
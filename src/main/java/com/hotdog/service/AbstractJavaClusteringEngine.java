@@ -0,0 +1,89 @@
+package com.hotdog.service;
+
+import com.hotdog.dto.HotEventResponseDTO;
+import com.hotdog.model.SystemConfig;
+import com.hotdog.repository.SystemConfigRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 应用内聚类引擎的公共部分：参数解析、窗口读取（优先走 WindowVectorStore）、结果汇总
+ */
+@Slf4j
+public abstract class AbstractJavaClusteringEngine implements ClusteringEngine {
+
+    protected final SystemConfigRepository systemConfigRepository;
+    protected final ArticleWindowLoader articleWindowLoader;
+    protected final WindowVectorStore windowVectorStore;
+    protected final VectorMath vectorMath;
+    protected final ClusteringPools clusteringPools;
+    protected final HnswIndexes hnswIndexes;
+
+    protected AbstractJavaClusteringEngine(SystemConfigRepository systemConfigRepository,
+                                           ArticleWindowLoader articleWindowLoader,
+                                           WindowVectorStore windowVectorStore,
+                                           VectorMath vectorMath,
+                                           ClusteringPools clusteringPools,
+                                           HnswIndexes hnswIndexes) {
+        this.systemConfigRepository = systemConfigRepository;
+        this.articleWindowLoader = articleWindowLoader;
+        this.windowVectorStore = windowVectorStore;
+        this.vectorMath = vectorMath;
+        this.clusteringPools = clusteringPools;
+        this.hnswIndexes = hnswIndexes;
+    }
+
+    protected SystemConfig loadConfig(Long systemId) {
+        return systemConfigRepository.findBySystemId(systemId)
+            .orElseThrow(() -> new RuntimeException("系统配置不存在: system_id=" + systemId));
+    }
+
+    protected static int maxLimit(SystemConfig config) {
+        return config.getMaxArticlesLimit() != null ? config.getMaxArticlesLimit() : 80000;
+    }
+
+    /**
+     * 对窗口做一次全量 DBSCAN
+     * 时间窗口不超过系统默认窗口时从 WindowVectorStore 读取（先增量刷新），否则直接从数据库加载；
+     * 系统开启 hnsw_enabled 时用 HNSW 邻域查询代替暴力计算（近似结果）
+     */
+    protected List<HotEventResponseDTO> clusterFully(Long systemId, SystemConfig config,
+                                                     int hours, float eps, int minSamples) {
+        long start = System.currentTimeMillis();
+        boolean approximate = Boolean.TRUE.equals(config.getHnswEnabled());
+        ClusteringResult result;
+        if (hours <= config.getDefaultHours()) {
+            windowVectorStore.refresh(systemId, config.getDefaultHours(), maxLimit(config));
+            result = clusteringPools.withPool(systemId, config.getClusteringParallelism(), pool -> approximate
+                ? hnswIndexes.cluster(systemId, config, hours, eps, minSamples, pool)
+                : windowVectorStore.read(systemId, hours, window -> new ClusteringResult(window,
+                    window.size() < minSamples ? null : Dbscan.fit(window, eps, minSamples, vectorMath, pool))));
+        } else {
+            ArticleWindow window = articleWindowLoader.load(systemId, hours, maxLimit(config));
+            result = clusteringPools.withPool(systemId, config.getClusteringParallelism(), pool -> approximate
+                ? hnswIndexes.clusterOnce(window, config, eps, minSamples, pool)
+                : new ClusteringResult(window,
+                    window.size() < minSamples ? null : Dbscan.fit(window, eps, minSamples, vectorMath, pool)));
+        }
+        if (result.getLabels() == null) {
+            return new ArrayList<>();
+        }
+
+        List<HotEventResponseDTO> events = assemble(result);
+        log.debug("Java DBSCAN 聚类完成: systemId={}, approximate={}, articles={}, clusters={}, {}ms",
+            systemId, approximate, result.getWindow().size(), events.size(), System.currentTimeMillis() - start);
+        return events;
+    }
+
+    /**
+     * 补齐簇内文章标题并汇总为热点事件
+     */
+    protected List<HotEventResponseDTO> assemble(ClusteringResult result) {
+        ArticleWindow window = result.getWindow();
+        articleWindowLoader.loadTitles(window, result.getLabels());
+        return HotEventAssembler.assemble(window.getIds(), window.getTitles(), window.getWeights(),
+            result.getLabels());
+    }
+}
@@ -0,0 +1,43 @@
+package com.hotdog.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文章分区维护
+ * hotd_articles 按 create_time 周分区：启动后及之后定时提前创建未来的分区，把落入默认分区的文章移到对应的周分区，
+ * 配置了保留天数时整体 DROP 过期分区（代替逐行软删除，表和 HNSW 索引不再无限增长）。
+ * 每个节点都会定时调用，hotd_maintain_article_partitions 内部取事务级 advisory lock，同一时刻只有一个节点真正执行
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArticlePartitionMaintainer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${hotdog.partition.weeks-ahead:4}")
+    private int weeksAhead;
+
+    /**
+     * 文章保留天数，0 表示不删除
+     */
+    @Value("${hotdog.partition.retention-days:0}")
+    private int retentionDays;
+
+    @Scheduled(fixedDelayString = "${hotdog.partition.maintain-interval-ms:3600000}", initialDelay = 0)
+    public void maintain() {
+        try {
+            jdbcTemplate.query("SELECT hotd_maintain_article_partitions(?, make_interval(days => ?))", rs -> {
+                // 函数返回 void，忽略结果集
+            }, weeksAhead, retentionDays > 0 ? retentionDays : null);
+            log.debug("文章分区维护完成: weeksAhead={}, retentionDays={}", weeksAhead, retentionDays);
+        } catch (Exception e) {
+            log.error("文章分区维护失败", e);
+        }
+    }
+}
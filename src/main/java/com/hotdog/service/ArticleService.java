@@ -2,8 +2,10 @@ package com.hotdog.service;
 
 import com.hotdog.config.SystemContext;
 import com.hotdog.dto.ArticleCreateDTO;
+import com.hotdog.dto.ArticleCursorPageDTO;
 import com.hotdog.dto.ArticleQueryDTO;
 import com.hotdog.dto.ArticleShareDTO;
+import com.hotdog.dto.ArticleSummaryDTO;
 import com.hotdog.model.Article;
 import com.hotdog.model.ArticleSystem;
 import com.hotdog.model.ArticleSystemId;
@@ -12,13 +14,26 @@ import com.hotdog.repository.ArticleSystemRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -31,11 +46,15 @@ public class ArticleService {
     
     private final ArticleRepository articleRepository;
     private final ArticleSystemRepository articleSystemRepository;
+    private final EmbeddingPipeline embeddingPipeline;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
     
     /**
-     * 创建文章（自动关联当前系统）
+     * 创建文章（自动关联当前系统，提交后进入向量化流水线）
      */
-    @Transactional
     public Article createArticle(ArticleCreateDTO dto) {
         Article article = new Article();
         article.setTitle(dto.getTitle());
@@ -58,13 +77,12 @@ public class ArticleService {
             article.setIsShared(dto.getIsShared());
         }
         
-        return articleRepository.save(article);
+        return saveAndSubmit(1, () -> List.of(articleRepository.save(article))).get(0);
     }
     
     /**
      * 批量创建文章
      */
-    @Transactional
     public List<Article> batchCreateArticles(List<ArticleCreateDTO> dtos) {
         List<Article> articles = dtos.stream()
             .map(dto -> {
@@ -80,11 +98,32 @@ public class ArticleService {
                 return article;
             })
             .collect(Collectors.toList());
-        return articleRepository.saveAll(articles);
+        return saveAndSubmit(articles.size(), () -> articleRepository.saveAll(articles));
+    }
+    
+    /**
+     * 先在事务之外预留向量化队列容量（队列满时等待，不占用数据库连接），再在事务内写入文章；
+     * 提交后入队，写入失败或回滚时释放预留
+     */
+    private List<Article> saveAndSubmit(int n, Supplier<List<Article>> save) {
+        embeddingPipeline.reserve(n);
+        boolean[] handedOver = {false};
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Article> saved = save.get();
+                embeddingPipeline.submitReserved(saved.stream().map(Article::getId).collect(Collectors.toList()));
+                handedOver[0] = true;
+                return saved;
+            });
+        } finally {
+            if (!handedOver[0]) {
+                embeddingPipeline.release(n);
+            }
+        }
     }
     
     /**
-     * 查询文章（支持分页、筛选，按系统过滤）
+     * 查询文章（支持分页、筛选，按系统过滤；指定关键词时按相关度排序）
      */
     public Page<Article> queryArticles(ArticleQueryDTO query, Long systemId, Pageable pageable) {
         // 如果没有指定 systemId，从上下文获取
@@ -92,12 +131,17 @@ public class ArticleService {
             systemId = SystemContext.getSystemId();
         }
         
+        if (query != null && query.getKeyword() != null && !query.getKeyword().isBlank()) {
+            return searchArticles(query, systemId, pageable);
+        }
+        
         // 如果指定了 systemId，使用系统过滤查询
         if (systemId != null) {
             return articleRepository.findBySystemIdAndFilters(
                 systemId,
                 query != null ? query.getSource() : null,
                 query != null ? query.getMinWeight() : null,
+                query != null ? query.getMaxWeight() : null,
                 pageable
             );
         }
@@ -107,10 +151,11 @@ public class ArticleService {
             return articleRepository.findAll(pageable);
         }
         
-        if (query.getSource() != null || query.getMinWeight() != null) {
-            return articleRepository.findBySourceAndMinWeight(
+        if (query.getSource() != null || query.getMinWeight() != null || query.getMaxWeight() != null) {
+            return articleRepository.findBySourceAndWeightRange(
                 query.getSource(),
                 query.getMinWeight(),
+                query.getMaxWeight(),
                 pageable
             );
         }
@@ -126,6 +171,148 @@ public class ArticleService {
         return articleRepository.findAll(pageable);
     }
     
+    /**
+     * 关键词检索（标题+摘要，hotd_articles.search_tsv 全文索引，中文由 pg_jieba 分词）
+     * 按相关度（标题命中权重高于摘要）排序，相关度相同时新文章在前；先取一页ID，再按ID加载实体
+     */
+    private Page<Article> searchArticles(ArticleQueryDTO query, Long systemId, Pageable pageable) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        appendFilters(where, args, systemId, query);
+        
+        Long total = jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM hotd_articles a WHERE a.is_deleted = false\n" + where, Long.class, args.toArray());
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total != null ? total : 0);
+        }
+        
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(query.getKeyword());
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<Long> ids = jdbcTemplate.queryForList("""
+            SELECT a.id
+            FROM hotd_articles a
+            WHERE a.is_deleted = false
+            """ + where + """
+            ORDER BY ts_rank_cd(a.search_tsv, websearch_to_tsquery('hotd_search', ?)) DESC,
+                     a.create_time DESC, a.id DESC
+            LIMIT ? OFFSET ?
+            """, Long.class, pageArgs.toArray());
+        
+        Map<Long, Article> byId = articleRepository.findByIdIn(ids).stream()
+            .collect(Collectors.toMap(Article::getId, Function.identity()));
+        List<Article> articles = ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+        return new PageImpl<>(articles, pageable, total);
+    }
+    
+    /**
+     * 游标分页查询文章（按 create_time DESC, id DESC）
+     * 以上一页最后一行的 (create_time, id) 为起点，深翻页与首页代价相同；不执行 count 查询，
+     * 只返回精简字段；关键词只作为筛选条件（不按相关度排序）；系统可见性（本系统、全局共享、共享关联）用 EXISTS 判断，不需要 DISTINCT
+     */
+    public ArticleCursorPageDTO queryArticlesByCursor(ArticleQueryDTO query, Long systemId, String cursor, int size) {
+        if (systemId == null) {
+            systemId = SystemContext.getSystemId();
+        }
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        
+        StringBuilder sql = new StringBuilder("""
+            SELECT a.id, a.system_id, a.is_shared, a.title, a.summary, a.weight, a.create_time, a.source
+            FROM hotd_articles a
+            WHERE a.is_deleted = false
+            """);
+        List<Object> args = new ArrayList<>();
+        appendFilters(sql, args, systemId, query);
+        if (cursor != null && !cursor.isBlank()) {
+            Object[] position = decodeCursor(cursor);
+            sql.append("  AND (a.create_time, a.id) < (?, ?)\n");
+            args.add(position[0]);
+            args.add(position[1]);
+        }
+        sql.append("ORDER BY a.create_time DESC, a.id DESC\nLIMIT ?");
+        // 多取一行判断是否还有下一页
+        args.add(limit + 1);
+        
+        List<Timestamp> times = new ArrayList<>();
+        List<ArticleSummaryDTO> items = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Timestamp createTime = rs.getTimestamp("create_time");
+            times.add(createTime);
+            return new ArticleSummaryDTO(
+                rs.getLong("id"),
+                (Long) rs.getObject("system_id"),
+                rs.getBoolean("is_shared"),
+                rs.getString("title"),
+                rs.getString("summary"),
+                rs.getBigDecimal("weight"),
+                createTime.toLocalDateTime(),
+                rs.getString("source"));
+        }, args.toArray());
+        
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, limit));
+        }
+        String nextCursor = hasMore ? encodeCursor(times.get(limit - 1), items.get(limit - 1).getId()) : null;
+        return new ArticleCursorPageDTO(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * 追加筛选条件（系统可见性、来源、权重范围、关键词），每个条件一行，以 AND 开头
+     */
+    private static void appendFilters(StringBuilder sql, List<Object> args, Long systemId, ArticleQueryDTO query) {
+        if (systemId != null) {
+            sql.append("""
+                AND (a.system_id = ?
+                     OR (a.is_shared = true AND a.system_id IS NOT NULL)
+                     OR EXISTS (SELECT 1 FROM hotd_article_systems s
+                                WHERE s.article_id = a.id AND s.system_id = ?))
+                """);
+            args.add(systemId);
+            args.add(systemId);
+        }
+        if (query == null) {
+            return;
+        }
+        if (query.getSource() != null) {
+            sql.append("  AND a.source = ?\n");
+            args.add(query.getSource());
+        }
+        if (query.getMinWeight() != null) {
+            sql.append("  AND a.weight >= ?\n");
+            args.add(query.getMinWeight());
+        }
+        if (query.getMaxWeight() != null) {
+            sql.append("  AND a.weight <= ?\n");
+            args.add(query.getMaxWeight());
+        }
+        if (query.getKeyword() != null && !query.getKeyword().isBlank()) {
+            sql.append("  AND a.search_tsv @@ websearch_to_tsquery('hotd_search', ?)\n");
+            args.add(query.getKeyword());
+        }
+    }
+    
+    /**
+     * 游标为 "创建时间(纪元微秒):文章ID" 的 URL 安全 Base64，对调用方不透明
+     */
+    private static String encodeCursor(Timestamp createTime, Long id) {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, createTime.toInstant());
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((micros + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = decoded.indexOf(':');
+            long micros = Long.parseLong(decoded.substring(0, sep));
+            long id = Long.parseLong(decoded.substring(sep + 1));
+            return new Object[]{Timestamp.from(Instant.EPOCH.plus(micros, ChronoUnit.MICROS)), id};
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new RuntimeException("无效的分页游标: " + cursor);
+        }
+    }
+    
     /**
      * 将文章共享给指定系统
      */
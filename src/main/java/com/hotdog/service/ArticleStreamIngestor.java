@@ -0,0 +1,200 @@
+package com.hotdog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotdog.config.SystemContext;
+import com.hotdog.dto.ArticleCreateDTO;
+import com.hotdog.dto.ArticleIngestResultDTO;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 文章流式批量导入
+ * 逐行解析 NDJSON（每行一个 ArticleCreateDTO），每 chunk-size 篇预先从序列取ID，再通过 COPY 写入 hotd_articles；
+ * 每个分块独立提交，连接只在写分块时占用，慢客户端上传期间不占连接池；提交后的ID进入向量化流水线
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArticleStreamIngestor {
+
+    /**
+     * 结果中最多返回的校验失败行号数
+     */
+    private static final int MAX_REJECTED_LINES = 1000;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EmbeddingPipeline embeddingPipeline;
+
+    @Value("${hotdog.ingest.chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * 导入 NDJSON 流；解析或写入失败时停止，返回已提交分块的结果和失败原因（含出错的输入行号）
+     */
+    public ArticleIngestResultDTO ingest(InputStream in) {
+        long start = System.currentTimeMillis();
+        ArticleIngestResultDTO result = new ArticleIngestResultDTO();
+        Long systemId = SystemContext.getSystemId();
+
+        List<ArticleCreateDTO> chunk = new ArrayList<>(chunkSize);
+        // 当前分块第一篇、最后一篇文章所在的输入行号，以及最近解析成功的行号
+        int chunkFirstLine = 0;
+        int chunkLastLine = 0;
+        int lastLine = 0;
+        boolean writing = false;
+        try (MappingIterator<ArticleCreateDTO> it = objectMapper.readerFor(ArticleCreateDTO.class).readValues(in)) {
+            while (it.hasNextValue()) {
+                ArticleCreateDTO dto = it.nextValue();
+                lastLine = it.getCurrentLocation().getLineNr();
+                result.setReceived(result.getReceived() + 1);
+                if (!validator.validate(dto).isEmpty()) {
+                    result.setRejected(result.getRejected() + 1);
+                    if (result.getRejectedLines().size() < MAX_REJECTED_LINES) {
+                        result.getRejectedLines().add(lastLine);
+                    }
+                    continue;
+                }
+                if (chunk.isEmpty()) {
+                    chunkFirstLine = lastLine;
+                }
+                chunkLastLine = lastLine;
+                chunk.add(dto);
+                if (chunk.size() >= chunkSize) {
+                    writing = true;
+                    writeChunk(chunk, systemId, result);
+                    writing = false;
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writing = true;
+                writeChunk(chunk, systemId, result);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("流式导入文章失败: systemId={}, received={}, inserted={}",
+                systemId, result.getReceived(), result.getInserted(), e);
+            String position;
+            if (writing) {
+                position = "第 " + chunkFirstLine + "-" + chunkLastLine + " 行的分块写入失败";
+            } else {
+                int line = e instanceof JsonProcessingException jpe && jpe.getLocation() != null
+                    ? jpe.getLocation().getLineNr() : lastLine + 1;
+                position = "第 " + line + " 行解析失败";
+            }
+            result.setError(position + "，之前的 " + result.getInserted() + " 篇已写入: " + e.getMessage());
+        }
+
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        log.info("流式导入文章完成: systemId={}, received={}, inserted={}, rejected={}, {}ms",
+            systemId, result.getReceived(), result.getInserted(), result.getRejected(), result.getElapsedMs());
+        return result;
+    }
+
+    private void writeChunk(List<ArticleCreateDTO> chunk, Long systemId, ArticleIngestResultDTO result) {
+        // 向量化队列满时在写入前等待（反压到上传方），超时则停止导入
+        embeddingPipeline.reserve(chunk.size());
+        boolean enqueued = false;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long[] ids = allocateIds(connection, chunk.size());
+                String createTime = OffsetDateTime.now().toString();
+                StringBuilder rows = new StringBuilder(chunk.size() * 256);
+                for (int i = 0; i < chunk.size(); i++) {
+                    ArticleCreateDTO dto = chunk.get(i);
+                    rows.append(ids[i]).append(',')
+                        .append(CopyCsv.text(dto.getTitle())).append(',')
+                        .append(CopyCsv.text(dto.getSummary())).append(',')
+                        .append(CopyCsv.text(dto.getFullText())).append(',')
+                        .append(CopyCsv.number(dto.getWeight() != null ? dto.getWeight() : BigDecimal.ONE)).append(',')
+                        .append(createTime).append(',')
+                        .append(CopyCsv.text(dto.getSource())).append(',')
+                        .append(CopyCsv.text(dto.getMetadata() != null
+                            ? objectMapper.writeValueAsString(dto.getMetadata()) : null)).append(',')
+                        .append("false,")
+                        .append(systemId != null ? systemId : "").append(',')
+                        .append(Boolean.TRUE.equals(dto.getIsShared())).append('\n');
+                }
+                connection.unwrap(PGConnection.class).getCopyAPI().copyIn("""
+                    COPY hotd_articles (id, title, summary, full_text, weight, create_time, source, attr,
+                                        is_deleted, system_id, is_shared)
+                    FROM STDIN WITH (FORMAT csv)
+                    """, new StringReader(rows.toString()));
+                connection.commit();
+                embeddingPipeline.enqueue(Arrays.stream(ids).boxed().toList());
+                enqueued = true;
+                result.setInserted(result.getInserted() + chunk.size());
+                addRanges(result.getIdRanges(), ids);
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("序列化文章元数据失败: " + e.getMessage(), e);
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("写入文章分块失败: " + e.getMessage(), e);
+        } finally {
+            if (!enqueued) {
+                embeddingPipeline.release(chunk.size());
+            }
+        }
+    }
+
+    /**
+     * 一次从 hotd_articles 的序列取 n 个ID（并发导入时可能不连续）
+     */
+    private static long[] allocateIds(Connection connection, int n) throws SQLException {
+        long[] ids = new long[n];
+        try (PreparedStatement ps = connection.prepareStatement("""
+                SELECT nextval(pg_get_serial_sequence('hotd_articles', 'id'))
+                FROM generate_series(1, ?)
+                """)) {
+            ps.setInt(1, n);
+            try (ResultSet rs = ps.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    ids[i++] = rs.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 把ID序列压缩为连续区间，与上一个区间相接时合并
+     */
+    private static void addRanges(List<ArticleIngestResultDTO.IdRange> ranges, long[] ids) {
+        for (long id : ids) {
+            ArticleIngestResultDTO.IdRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last.getTo() + 1 == id) {
+                last.setTo(id);
+            } else {
+                ranges.add(new ArticleIngestResultDTO.IdRange(id, id));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.hotdog.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 聚类时间窗口内的文章（按 create_time 降序）
+ * 向量为已归一化的 float32（本机字节序），第 i 行向量从 vectorOffsets[i] 字节处开始，余弦距离 = 1 - 点积；
+ * 来自 WindowVectorStore 时 vectors 直接引用堆外内存，不做拷贝
+ */
+@Getter
+@AllArgsConstructor
+public class ArticleWindow {
+
+    private final long[] ids;
+    private final String[] titles;     // 可能为 null，聚类后按需加载
+    private final double[] weights;
+    private final long[] createTimes;  // epoch 毫秒
+    private final ByteBuffer vectors;
+    private final int[] vectorOffsets;
+    private final int dim;
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 第 row 行向量的第 k 个分量
+     */
+    public float component(int row, int k) {
+        return vectors.getFloat(vectorOffsets[row] + k * Float.BYTES);
+    }
+
+    /**
+     * 取部分行组成新窗口（向量仍引用同一块内存）
+     */
+    public ArticleWindow select(int[] rows) {
+        int n = rows.length;
+        long[] outIds = new long[n];
+        String[] outTitles = new String[n];
+        double[] outWeights = new double[n];
+        long[] outTimes = new long[n];
+        int[] outOffsets = new int[n];
+        for (int i = 0; i < n; i++) {
+            int row = rows[i];
+            outIds[i] = ids[row];
+            outTitles[i] = titles[row];
+            outWeights[i] = weights[row];
+            outTimes[i] = createTimes[row];
+            outOffsets[i] = vectorOffsets[row];
+        }
+        return new ArticleWindow(outIds, outTitles, outWeights, outTimes, vectors, outOffsets, dim);
+    }
+}
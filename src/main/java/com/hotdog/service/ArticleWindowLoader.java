@@ -0,0 +1,192 @@
+package com.hotdog.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 聚类窗口加载器
+ * 读取系统可见的已向量化文章（包括共享文章），向量只解析、归一化一次
+ */
+@Component
+@RequiredArgsConstructor
+public class ArticleWindowLoader {
+
+    static final int EMBEDDING_DIM = 1024;
+
+    /**
+     * 系统可见文章的过滤条件（自有 + 全局共享 + 指定共享），参数为两次 system_id
+     */
+    private static final String VISIBLE_TO_SYSTEM = """
+              AND (
+                a.system_id = ?
+                OR (a.is_shared = true AND a.system_id IS NOT NULL)
+                OR EXISTS (SELECT 1 FROM hotd_article_systems as_rel
+                           WHERE as_rel.article_id = a.id AND as_rel.system_id = ?)
+              )
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 加载系统时间窗口内的文章，最多 maxLimit 条（保留最新的）
+     */
+    public ArticleWindow load(Long systemId, int hours, int maxLimit) {
+        String sql = """
+            SELECT a.id, a.title, a.weight, a.create_time, a.embedding::text AS embedding
+            FROM hotd_articles a
+            WHERE a.embedding IS NOT NULL
+              AND a.create_time >= now() - make_interval(hours => ?)
+              AND a.is_deleted = false
+            """ + VISIBLE_TO_SYSTEM + """
+            ORDER BY a.create_time DESC
+            LIMIT ?
+        """;
+
+        WindowBuilder builder = new WindowBuilder();
+        jdbcTemplate.query(sql, builder::add, hours, systemId, systemId,
+            Math.min(maxLimit, WindowVectorStore.MAX_CAPACITY));
+        return builder.build();
+    }
+
+    /**
+     * 系统时间窗口内的文章数（与 load 的条件相同，不读取向量）
+     */
+    public long countWindow(Long systemId, int hours) {
+        String sql = """
+            SELECT count(*)
+            FROM hotd_articles a
+            WHERE a.embedding IS NOT NULL
+              AND a.create_time >= now() - make_interval(hours => ?)
+              AND a.is_deleted = false
+            """ + VISIBLE_TO_SYSTEM;
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, hours, systemId, systemId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 为已归入簇的文章补齐标题（噪声点不需要标题，不加载）
+     */
+    public void loadTitles(ArticleWindow window, int[] labels) {
+        String[] titles = window.getTitles();
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < window.size(); i++) {
+            if (labels[i] != Dbscan.NOISE && titles[i] == null) {
+                missing.add(window.getIds()[i]);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, String> titleById = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT id, title FROM hotd_articles WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", missing.toArray()));
+            return ps;
+        }, rs -> {
+            titleById.put(rs.getLong("id"), rs.getString("title"));
+        });
+        for (int i = 0; i < window.size(); i++) {
+            if (labels[i] != Dbscan.NOISE && titles[i] == null) {
+                titles[i] = titleById.get(window.getIds()[i]);
+            }
+        }
+    }
+
+    /**
+     * 解析 pgvector 文本格式：[0.1,0.2,...]
+     */
+    static float[] parseVector(String text) {
+        return parseVector(text, new float[EMBEDDING_DIM]);
+    }
+
+    /**
+     * 解析到调用方提供的数组中（可复用，避免逐行分配）
+     */
+    static float[] parseVector(String text, float[] values) {
+        int count = 0;
+        int start = 1;
+        int end = text.length() - 1;
+        for (int i = start; i <= end && count < EMBEDDING_DIM; i++) {
+            if (i == end || text.charAt(i) == ',') {
+                if (i > start) {
+                    values[count++] = Float.parseFloat(text.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        Arrays.fill(values, count, values.length, 0f);
+        return values;
+    }
+
+    /**
+     * L2 归一化（零向量保持不变）
+     */
+    static void normalize(float[] data, int offset, int dim) {
+        double sum = 0;
+        for (int i = offset; i < offset + dim; i++) {
+            sum += (double) data[i] * data[i];
+        }
+        if (sum == 0) {
+            return;
+        }
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = offset; i < offset + dim; i++) {
+            data[i] *= inv;
+        }
+    }
+
+    /**
+     * 逐行收集结果集，最后拼成连续的向量数组
+     */
+    private static class WindowBuilder {
+        private final List<Long> ids = new ArrayList<>();
+        private final List<String> titles = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+        private final List<Long> createTimes = new ArrayList<>();
+        private final List<float[]> rows = new ArrayList<>();
+
+        void add(ResultSet rs) throws SQLException {
+            ids.add(rs.getLong("id"));
+            titles.add(rs.getString("title"));
+            BigDecimal weight = rs.getBigDecimal("weight");
+            // 与 plpython 版本一致：权重为空或为 0 时按 1 计算
+            weights.add(weight == null || weight.signum() == 0 ? 1.0 : weight.doubleValue());
+            createTimes.add(rs.getTimestamp("create_time").getTime());
+            rows.add(parseVector(rs.getString("embedding")));
+        }
+
+        ArticleWindow build() {
+            int n = ids.size();
+            long[] idArray = new long[n];
+            double[] weightArray = new double[n];
+            long[] timeArray = new long[n];
+            int[] offsets = new int[n];
+            ByteBuffer vectors = ByteBuffer.allocate(n * EMBEDDING_DIM * Float.BYTES).order(ByteOrder.nativeOrder());
+            FloatBuffer floats = vectors.asFloatBuffer();
+            for (int i = 0; i < n; i++) {
+                idArray[i] = ids.get(i);
+                weightArray[i] = weights.get(i);
+                timeArray[i] = createTimes.get(i);
+                offsets[i] = i * EMBEDDING_DIM * Float.BYTES;
+                float[] row = rows.get(i);
+                normalize(row, 0, EMBEDDING_DIM);
+                floats.put(i * EMBEDDING_DIM, row);
+            }
+            return new ArticleWindow(idArray, titles.toArray(new String[0]), weightArray, timeArray,
+                vectors, offsets, EMBEDDING_DIM);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.hotdog.service;
+
+import com.hotdog.dto.HotEventResponseDTO;
+
+import java.util.List;
+
+/**
+ * 聚类引擎（可插拔）
+ * 通过 hotdog.clustering.engine 选择实现：java（默认，应用内 DBSCAN）或 postgres（plpython3u 函数）
+ */
+public interface ClusteringEngine {
+
+    /**
+     * 按系统聚类当前时间窗口内的文章
+     * 参数为 NULL 时使用系统配置，返回结果按 hot_score 降序排列并已设置 rank
+     */
+    List<HotEventResponseDTO> cluster(Long systemId, Integer hours, Float eps, Integer minSamples);
+}
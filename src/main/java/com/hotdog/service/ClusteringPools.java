@@ -0,0 +1,124 @@
+package com.hotdog.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 按系统划分的聚类线程池
+ * 每个系统使用独立的 ForkJoinPool，并行度取 hotd_system_configs.clustering_parallelism，
+ * 未配置时取 hotdog.clustering.parallelism（0 表示 CPU 核数的一半），避免单个大租户占满所有核；
+ * 所有系统同时运行的聚类并行度之和不超过 hotdog.clustering.max-total-parallelism（0 表示 CPU 核数），
+ * 多个租户同时聚类时按并行度排队，而不是 N 个租户各开满线程。
+ * 并行度变化时替换为新池，旧池在最后一个使用者结束后才关闭
+ */
+@Component
+@Slf4j
+public class ClusteringPools {
+
+    @Value("${hotdog.clustering.parallelism:0}")
+    private int defaultParallelism;
+
+    @Value("${hotdog.clustering.max-total-parallelism:0}")
+    private int maxTotalParallelism;
+
+    private final Map<Long, SystemPool> pools = new HashMap<>();
+    private Semaphore permits;
+    private int totalPermits;
+
+    @PostConstruct
+    public void init() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        totalPermits = maxTotalParallelism > 0 ? maxTotalParallelism : cores;
+        permits = new Semaphore(totalPermits, true);
+    }
+
+    /**
+     * 在系统的线程池中执行 work：先按并行度取得全局许可，执行期间线程池不会被关闭
+     */
+    public <T> T withPool(Long systemId, Integer parallelism, Function<ForkJoinPool, T> work) {
+        SystemPool entry = acquire(systemId, resolve(parallelism));
+        int needed = Math.min(entry.pool.getParallelism(), totalPermits);
+        try {
+            permits.acquire(needed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(entry);
+            throw new RuntimeException("等待聚类线程许可时被中断", e);
+        }
+        try {
+            return work.apply(entry.pool);
+        } finally {
+            permits.release(needed);
+            release(entry);
+        }
+    }
+
+    /**
+     * 获取系统的线程池并登记使用者，并行度变化时替换为新池（旧池标记退役，由最后一个使用者关闭）
+     */
+    private synchronized SystemPool acquire(Long systemId, int parallelism) {
+        SystemPool entry = pools.get(systemId);
+        if (entry == null || entry.pool.getParallelism() != parallelism) {
+            if (entry != null) {
+                entry.retired = true;
+                if (entry.users == 0) {
+                    entry.pool.shutdown();
+                }
+            }
+            log.info("创建聚类线程池: systemId={}, parallelism={}", systemId, parallelism);
+            AtomicInteger index = new AtomicInteger();
+            entry = new SystemPool(new ForkJoinPool(parallelism, p -> {
+                var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("hotd-cluster-" + systemId + "-" + index.incrementAndGet());
+                return thread;
+            }, null, false));
+            pools.put(systemId, entry);
+        }
+        entry.users++;
+        return entry;
+    }
+
+    private synchronized void release(SystemPool entry) {
+        entry.users--;
+        if (entry.retired && entry.users == 0) {
+            entry.pool.shutdown();
+        }
+    }
+
+    private int resolve(Integer parallelism) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (parallelism != null && parallelism > 0) {
+            return Math.min(parallelism, cores);
+        }
+        return defaultParallelism > 0 ? Math.min(defaultParallelism, cores) : Math.max(1, cores / 2);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        pools.values().forEach(entry -> entry.pool.shutdown());
+        pools.clear();
+    }
+
+    /**
+     * 系统线程池及其当前使用者数
+     */
+    private static class SystemPool {
+        final ForkJoinPool pool;
+        int users;
+        boolean retired;
+
+        SystemPool(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.hotdog.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一次聚类的原始结果：窗口（按 create_time 降序）及每篇文章的簇标签
+ * 窗口的向量可能引用 WindowVectorStore 的堆外内存，离开读锁后不应再读取
+ */
+@Getter
+@AllArgsConstructor
+public class ClusteringResult {
+
+    private final ArticleWindow window;
+    private final int[] labels;  // 窗口文章数不足 min_samples 时为 null
+}
@@ -0,0 +1,26 @@
+package com.hotdog.service;
+
+import java.math.BigDecimal;
+
+/**
+ * COPY ... WITH (FORMAT csv) 的字段编码
+ */
+final class CopyCsv {
+
+    private CopyCsv() {
+    }
+
+    static String number(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    /**
+     * CSV 字段：null 写为空（COPY 视为 NULL），其余加引号并转义引号
+     */
+    static String text(String value) {
+        if (value == null) {
+            return "";
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
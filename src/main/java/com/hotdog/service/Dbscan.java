@@ -0,0 +1,59 @@
+package com.hotdog.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * DBSCAN 聚类（余弦距离，输入向量已归一化）
+ * 标签分配顺序与 sklearn 一致：按下标顺序从核心点出发扩展，噪声点标签为 -1
+ */
+public final class Dbscan {
+
+    public static final int NOISE = -1;
+
+    private Dbscan() {
+    }
+
+    /**
+     * 对窗口内的向量执行 DBSCAN，返回每个点的簇标签
+     * 邻域图在 pool 中并行构建（pool 的并行度即本次聚类可用的核数）
+     */
+    public static int[] fit(ArticleWindow window, float eps, int minSamples, VectorMath math, ForkJoinPool pool) {
+        return label(NeighborGraph.build(window, eps, math, pool), minSamples);
+    }
+
+    /**
+     * 根据邻域图划分核心点并扩展簇
+     */
+    static int[] label(NeighborGraph graph, int minSamples) {
+        int n = graph.size();
+        int[] labels = new int[n];
+        Arrays.fill(labels, NOISE);
+
+        int[] stack = new int[n];
+        int nextLabel = 0;
+        for (int i = 0; i < n; i++) {
+            if (labels[i] != NOISE || graph.degree(i) < minSamples) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = i;
+            labels[i] = nextLabel;
+            while (top > 0) {
+                int p = stack[--top];
+                if (graph.degree(p) < minSamples) {
+                    continue; // 边界点不继续扩展
+                }
+                for (int k = 0; k < graph.degree(p); k++) {
+                    int q = graph.neighbor(p, k);
+                    if (labels[q] == NOISE) {
+                        labels[q] = nextLabel;
+                        stack[top++] = q;
+                    }
+                }
+            }
+            nextLabel++;
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,168 @@
+package com.hotdog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 向量缓存（按文本内容哈希）
+ * 内存 LRU 在前，hotd_embedding_cache 表在后；内容哈希由数据库函数 hotd_content_hash 计算，
+ * 与 SQL 向量化函数共用同一张表，转载、重复的文章不再调用模型；缓存键中的模型取 EmbeddingProvider.cacheKey()，
+ * 即实际请求的模型
+ */
+@Component
+@Slf4j
+public class EmbeddingCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, float[]> memory;
+    private final boolean enabled;
+    private final String modelName;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong tableHits = new AtomicLong();
+
+    @Value("${hotdog.embedding.cache.retention-days:60}")
+    private int retentionDays;
+
+    public EmbeddingCache(JdbcTemplate jdbcTemplate,
+                          EmbeddingProvider embeddingProvider,
+                          @Value("${hotdog.embedding.cache.enabled:true}") boolean enabled,
+                          @Value("${hotdog.embedding.cache.memory-size:10000}") long memorySize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.modelName = embeddingProvider.cacheKey();
+        this.memory = Caffeine.newBuilder().maximumSize(memorySize).build();
+    }
+
+    /**
+     * 查询一批内容哈希的向量，返回命中的部分
+     */
+    public Map<String, float[]> getAll(Collection<String> hashes) {
+        Map<String, float[]> found = new HashMap<>();
+        if (!enabled || hashes.isEmpty()) {
+            return found;
+        }
+        lookups.addAndGet(hashes.size());
+        List<String> missing = new ArrayList<>();
+        for (String hash : hashes) {
+            float[] vector = memory.getIfPresent(hash);
+            if (vector != null) {
+                found.put(hash, vector);
+            } else {
+                missing.add(hash);
+            }
+        }
+        memoryHits.addAndGet(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        int before = found.size();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("""
+                SELECT content_hash, embedding::text AS embedding
+                FROM hotd_embedding_cache
+                WHERE model_name = ? AND content_hash = ANY(?)
+                """);
+            ps.setString(1, modelName);
+            ps.setArray(2, con.createArrayOf("text", missing.toArray()));
+            return ps;
+        }, rs -> {
+            String hash = rs.getString("content_hash");
+            float[] vector = ArticleWindowLoader.parseVector(rs.getString("embedding"));
+            memory.put(hash, vector);
+            found.put(hash, vector);
+        });
+        tableHits.addAndGet(found.size() - before);
+        return found;
+    }
+
+    /**
+     * 写入新向量（已归一化），内存和表各一次
+     */
+    public void putAll(Map<String, float[]> vectors) {
+        if (!enabled || vectors.isEmpty()) {
+            return;
+        }
+        memory.putAll(vectors);
+        String[] hashes = vectors.keySet().toArray(new String[0]);
+        String[] literals = new String[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            literals[i] = EmbeddingPipeline.toLiteral(vectors.get(hashes[i]));
+        }
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                INSERT INTO hotd_embedding_cache (content_hash, model_name, embedding)
+                SELECT v.content_hash, ?, v.embedding::vector
+                FROM unnest(?::text[], ?::text[]) AS v(content_hash, embedding)
+                ON CONFLICT (content_hash, model_name) DO NOTHING
+                """);
+            ps.setString(1, modelName);
+            ps.setArray(2, con.createArrayOf("text", hashes));
+            ps.setArray(3, con.createArrayOf("text", literals));
+            return ps;
+        });
+    }
+
+    /**
+     * 命中率统计：应用内流水线为本进程启动以来的计数，SQL 向量化函数（定时任务）的命中
+     * 由函数累计在 hotd_embedding_cache_stats 表中，按函数分别返回
+     */
+    public Map<String, Object> getStats() {
+        long total = lookups.get();
+        long hits = memoryHits.get() + tableHits.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("lookups", total);
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("tableHits", tableHits.get());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("memoryEntries", memory.estimatedSize());
+        try {
+            stats.put("sqlFunctions", jdbcTemplate.queryForList("""
+                SELECT source, lookups, hits,
+                       CASE WHEN lookups = 0 THEN 0.0 ELSE hits::float8 / lookups END AS "hitRatio",
+                       update_time AS "updateTime"
+                FROM hotd_embedding_cache_stats
+                ORDER BY source
+                """));
+        } catch (Exception e) {
+            log.warn("查询 SQL 向量化函数的缓存命中统计失败: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * 清理超过保留天数的缓存行（超过 60 天的文章不再向量化，对应的缓存也用不到）
+     */
+    @Scheduled(fixedDelayString = "${hotdog.embedding.cache.gc-interval-ms:3600000}")
+    public void cleanup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(
+                "DELETE FROM hotd_embedding_cache WHERE create_time < now() - make_interval(days => ?)",
+                retentionDays);
+            if (deleted > 0) {
+                log.info("清理过期向量缓存: deleted={}", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理过期向量缓存失败", e);
+        }
+    }
+}
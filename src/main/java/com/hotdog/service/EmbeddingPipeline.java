@@ -0,0 +1,286 @@
+package com.hotdog.service;
+
+import com.hotdog.exception.EmbeddingBacklogException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 应用内向量化流水线（写入即向量化）
+ * 新文章ID进入有界队列，工作线程按数量（batch-size）和等待时间（max-wait-ms）攒批调用 EmbeddingProvider，
+ * 先查内容哈希缓存（EmbeddingCache），只对未命中的文本调用模型，向量归一化后经 EmbeddingService 用一条语句批量写回。队列容量用信号量在写入文章之前预留，队列满时写入方等待，
+ * 超过 enqueue-timeout-ms 仍无空位则抛出 EmbeddingBacklogException（接口返回 503），由调用方稍后重试；
+ * 向量化失败的文章标记为 failed（计入积压计数），由定时任务兜底重试
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddingPipeline {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingProvider embeddingProvider;
+    private final EmbeddingCache embeddingCache;
+    private final EmbeddingService embeddingService;
+
+    @Value("${hotdog.embedding.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${hotdog.embedding.pipeline.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${hotdog.embedding.pipeline.workers:2}")
+    private int workers;
+
+    @Value("${hotdog.embedding.pipeline.batch-size:64}")
+    private int batchSize;
+
+    @Value("${hotdog.embedding.pipeline.max-wait-ms:200}")
+    private long maxWaitMs;
+
+    @Value("${hotdog.embedding.pipeline.enqueue-timeout-ms:5000}")
+    private long enqueueTimeoutMs;
+
+    private final LinkedBlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong embedded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong modelCalls = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private Semaphore capacity;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        capacity = new Semaphore(queueCapacity);
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::work, "hotd-embed-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("向量化流水线已启动: provider={}, workers={}, batchSize={}, queueCapacity={}",
+            embeddingProvider.name(), workers, batchSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交已预留队列容量的新文章（调用方在开启事务之前 reserve，队列满时的等待不占用数据库连接）；
+     * 在事务内调用时提交后再入队，回滚则释放预留
+     */
+    public void submitReserved(List<Long> articleIds) {
+        if (!enabled || articleIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(articleIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    enqueue(articleIds);
+                } else {
+                    release(articleIds.size());
+                }
+            }
+        });
+    }
+
+    /**
+     * 预留 n 个队列位置，超时抛出 EmbeddingBacklogException
+     */
+    public void reserve(int n) {
+        if (!enabled) {
+            return;
+        }
+        if (n > queueCapacity) {
+            throw new EmbeddingBacklogException("单次提交 " + n + " 篇超过向量化队列容量 " + queueCapacity + "，请分批提交");
+        }
+        try {
+            if (!capacity.tryAcquire(n, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new EmbeddingBacklogException("向量化队列已满（" + queue.size() + " 篇待处理），请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingBacklogException("等待向量化队列时被中断");
+        }
+    }
+
+    /**
+     * 释放预留但未使用的队列位置
+     */
+    public void release(int n) {
+        if (enabled) {
+            capacity.release(n);
+        }
+    }
+
+    /**
+     * 入队已预留位置的文章（文章已提交）
+     */
+    public void enqueue(List<Long> articleIds) {
+        if (!enabled) {
+            return;
+        }
+        queue.addAll(articleIds);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("provider", embeddingProvider.name());
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("embedded", embedded.get());
+        stats.put("failed", failed.get());
+        stats.put("modelCalls", modelCalls.get());
+        stats.put("batches", batches.get());
+        return stats;
+    }
+
+    private void work() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Long next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                capacity.release(batch.size());
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                log.warn("向量化批次失败，等待定时任务重试: size={}, error={}", batch.size(), e.getMessage());
+                markFailed(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void markFailed(List<Long> batch) {
+        try {
+            embeddingService.markEmbeddingFailed(batch);
+        } catch (Exception e) {
+            log.warn("标记向量化失败状态出错: {}", e.getMessage());
+        }
+    }
+
+    private void process(List<Long> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        List<String> hashes = new ArrayList<>(batch.size());
+        Map<String, String> textByHash = new LinkedHashMap<>();
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("""
+                SELECT id, text, hotd_content_hash(text) AS content_hash
+                FROM (
+                    SELECT id, title || '。' || COALESCE(summary, '') || '。' || COALESCE(full_text, '') AS text
+                    FROM hotd_articles
+                    WHERE id = ANY(?)
+                      AND embedding_state IN ('pending', 'failed')
+                      AND is_deleted = false
+                ) t
+                """);
+            ps.setArray(1, con.createArrayOf("bigint", batch.toArray()));
+            return ps;
+        }, rs -> {
+            String hash = rs.getString("content_hash");
+            ids.add(rs.getLong("id"));
+            hashes.add(hash);
+            textByHash.putIfAbsent(hash, rs.getString("text"));
+        });
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        // 先查内容哈希缓存，同一批次内相同内容只向量化一次
+        Map<String, float[]> vectorByHash = embeddingCache.getAll(textByHash.keySet());
+        List<String> missing = new ArrayList<>();
+        for (String hash : textByHash.keySet()) {
+            if (!vectorByHash.containsKey(hash)) {
+                missing.add(hash);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<String> texts = new ArrayList<>(missing.size());
+            for (String hash : missing) {
+                texts.add(textByHash.get(hash));
+            }
+            List<float[]> vectors = embeddingProvider.embed(texts);
+            Map<String, float[]> fresh = new HashMap<>();
+            for (int i = 0; i < missing.size(); i++) {
+                float[] vector = vectors.get(i);
+                ArticleWindowLoader.normalize(vector, 0, vector.length);
+                fresh.put(missing.get(i), vector);
+            }
+            embeddingCache.putAll(fresh);
+            vectorByHash.putAll(fresh);
+        }
+
+        String[] literals = new String[ids.size()];
+        Map<String, String> literalByHash = new HashMap<>();
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = literalByHash.computeIfAbsent(hashes.get(i), h -> toLiteral(vectorByHash.get(h)));
+        }
+
+        embeddingService.writeEmbeddings(ids, literals);
+        embedded.addAndGet(ids.size());
+        modelCalls.addAndGet(missing.size());
+        batches.incrementAndGet();
+    }
+
+    static String toLiteral(float[] vector) {
+        StringBuilder sb = new StringBuilder(vector.length * 12);
+        sb.append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
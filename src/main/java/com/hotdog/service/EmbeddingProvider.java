@@ -0,0 +1,22 @@
+package com.hotdog.service;
+
+import java.util.List;
+
+/**
+ * 向量化模型提供方（应用内向量化流水线使用）
+ */
+public interface EmbeddingProvider {
+
+    String name();
+
+    /**
+     * 向量缓存中区分模型的键：请求中指定的模型名，未指定模型时为 "api:" + 接口地址
+     * （与 hotd_embed_articles_batch_by_system_via_api 的缓存键一致，不同模型的向量不会互相复用）
+     */
+    String cacheKey();
+
+    /**
+     * 按顺序返回每段文本的向量（不要求归一化）
+     */
+    List<float[]> embed(List<String> texts);
+}
@@ -2,10 +2,16 @@ package com.hotdog.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * 向量化服务（调用 PostgreSQL 函数）
  */
@@ -16,6 +22,13 @@ public class EmbeddingService {
     
     private final JdbcTemplate jdbcTemplate;
     
+    // 批量写回的耗时统计（进程启动以来）
+    private final AtomicLong writeBatches = new AtomicLong();
+    private final AtomicLong writeRows = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong writeMaxNanos = new AtomicLong();
+    private volatile long writeLastNanos;
+    
     /**
      * 触发批量向量化（调用 PostgreSQL 函数）
      */
@@ -35,21 +48,106 @@ public class EmbeddingService {
     }
     
     /**
-     * 获取待向量化的文章数量
+     * 按系统执行一批向量化（调用 PostgreSQL 函数 hotd_embed_articles_batch_by_system，与 pg_cron 任务相同）
+     */
+    public void embedBatchForSystem(Long systemId) {
+        jdbcTemplate.query("SELECT hotd_embed_articles_batch_by_system(?)", rs -> {
+            // 函数返回 void，忽略结果集
+        }, systemId);
+    }
+    
+    /**
+     * 获取待向量化的文章数量（读取 hotd_embedding_backlog 计数，不扫描文章表）
+     * 只含向量化任务仍会处理的最近 60 天内的文章，更早的未完成文章已标记为 expired
      */
     public Long getPendingEmbeddingCount() {
-        String sql = """
-            SELECT COUNT(*) 
-            FROM hotd_articles 
-            WHERE (embedding IS NULL OR embedding = '[0]'::vector)
-              AND create_time > now() - INTERVAL '60 days'
-        """;
         try {
-            Long count = jdbcTemplate.queryForObject(sql, Long.class);
+            Long count = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(pending), 0) FROM hotd_embedding_backlog", Long.class);
             return count != null ? count : 0L;
         } catch (Exception e) {
             log.error("查询待向量化文章数量失败", e);
             return 0L;
         }
     }
+    
+    /**
+     * 获取各系统的向量化积压（systemId 为空时返回所有系统，system_id = 0 为未归属系统的文章）
+     */
+    public List<Map<String, Object>> getEmbeddingBacklog(Long systemId) {
+        return jdbcTemplate.queryForList("""
+            SELECT b.system_id AS "systemId", s.system_code AS "systemCode",
+                   b.pending, b.failed, b.update_time AS "updateTime"
+            FROM hotd_embedding_backlog b
+            LEFT JOIN hotd_systems s ON s.id = b.system_id
+            WHERE ?::bigint IS NULL OR b.system_id = ?
+            ORDER BY b.system_id
+            """, systemId, systemId);
+    }
+    
+    /**
+     * 标记向量化失败的文章（仍会被定时向量化任务重试）
+     */
+    public int markEmbeddingFailed(List<Long> articleIds) {
+        if (articleIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                UPDATE hotd_articles SET embedding_state = 'failed'
+                WHERE id = ANY(?) AND embedding_state = 'pending'
+                """);
+            ps.setArray(1, con.createArrayOf("bigint", articleIds.toArray()));
+            return ps;
+        });
+    }
+    
+    /**
+     * 批量写回向量：整批一条 UPDATE ... FROM unnest（hotd_apply_embeddings），代替逐行 UPDATE
+     *
+     * @param articleIds 文章ID
+     * @param embeddings 与 articleIds 一一对应的向量（pgvector 文本格式 '[x,y,...]'）
+     * @return 更新的行数
+     */
+    public int writeEmbeddings(List<Long> articleIds, String[] embeddings) {
+        if (articleIds.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Integer updated = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            try (var ps = con.prepareStatement("SELECT hotd_apply_embeddings(?, ?)")) {
+                ps.setArray(1, con.createArrayOf("bigint", articleIds.toArray()));
+                ps.setArray(2, con.createArrayOf("text", embeddings));
+                try (var rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        writeBatches.incrementAndGet();
+        writeRows.addAndGet(articleIds.size());
+        writeNanos.addAndGet(elapsed);
+        writeMaxNanos.accumulateAndGet(elapsed, Math::max);
+        writeLastNanos = elapsed;
+        log.debug("批量写回向量: rows={}, updated={}, {}ms", articleIds.size(), updated, elapsed / 1_000_000);
+        return updated != null ? updated : 0;
+    }
+    
+    /**
+     * 批量写回的耗时统计
+     */
+    public Map<String, Object> getWriteStats() {
+        long batches = writeBatches.get();
+        long rows = writeRows.get();
+        long nanos = writeNanos.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batches);
+        stats.put("rows", rows);
+        stats.put("totalMs", nanos / 1_000_000);
+        stats.put("avgBatchMs", batches == 0 ? 0.0 : nanos / 1e6 / batches);
+        stats.put("maxBatchMs", writeMaxNanos.get() / 1e6);
+        stats.put("lastBatchMs", writeLastNanos / 1e6);
+        stats.put("rowsPerSecond", nanos == 0 ? 0.0 : rows * 1e9 / nanos);
+        return stats;
+    }
 }
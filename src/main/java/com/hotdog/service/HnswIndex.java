@@ -0,0 +1,665 @@
+package com.hotdog.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * 窗口内文章的 HNSW 近邻图（内积相似度，向量已归一化）
+ * 节点按文章ID增量维护：sync 时插入新文章、删除滑出窗口的文章并修补其邻居的连接；
+ * eps 邻域查询先在第 0 层做 ef 宽度的搜索，再从命中的点沿图扩展，代价与邻域大小而不是窗口大小成正比。
+ * 向量不拷贝，节点通过字节偏移引用 sync 时传入的窗口（WindowVectorStore 的堆外内存），
+ * 因此 sync 和查询都必须在同一次 WindowVectorStore.read 内完成
+ *
+ * sync 非线程安全，由调用方加锁；sync 内部的批量插入和 rangeGraph 在 ForkJoinPool 中并行执行
+ */
+public class HnswIndex {
+
+    private static final int LOCK_STRIPES = 1024;
+    private static final int ROWS_PER_TASK = 256;
+    private static final ThreadLocal<Visited> VISITED = ThreadLocal.withInitial(Visited::new);
+
+    private final int dim;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMult;
+    private final VectorMath math;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Object entryLock = new Object();
+    private final Map<Long, Integer> nodeById = new HashMap<>();
+
+    private ByteBuffer vectors;
+    private long[] ids = new long[0];
+    private int[] offsets = new int[0];
+    private int[] rowOfNode = new int[0];
+    private int[][][] links = new int[0][][];  // links[node][level] = {count, neighbor...}
+    private boolean[] deleted = new boolean[0];
+    private int nodeCount;
+    private int deletedCount;
+    private volatile int entryPoint = -1;
+    private volatile int maxLevel = -1;
+
+    public HnswIndex(int dim, int m, int efConstruction, VectorMath math) {
+        this.dim = dim;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMult = 1.0 / Math.log(m);
+        this.math = math;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int size() {
+        return nodeById.size();
+    }
+
+    /**
+     * 已删除但仍占用节点号的数量，超过存活节点数时调用方应重建索引
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * 与窗口同步：绑定存活节点的向量偏移，删除窗口中已不存在的文章，批量插入新文章
+     *
+     * @return {新增数, 删除数}
+     */
+    public int[] sync(ArticleWindow window, ForkJoinPool pool) {
+        vectors = window.getVectors();
+        int n = window.size();
+        // 按容量而不是节点数分配：后续插入的节点号可能落在 [nodeCount, ids.length) 的空余容量内
+        rowOfNode = new int[ids.length];
+        Arrays.fill(rowOfNode, -1);
+
+        List<Integer> addedRows = new ArrayList<>();
+        for (int row = 0; row < n; row++) {
+            Integer node = nodeById.get(window.getIds()[row]);
+            if (node == null) {
+                addedRows.add(row);
+            } else {
+                offsets[node] = window.getVectorOffsets()[row];
+                rowOfNode[node] = row;
+            }
+        }
+
+        List<Integer> removed = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted[node] && rowOfNode[node] < 0) {
+                removed.add(node);
+                deleted[node] = true;
+                nodeById.remove(ids[node]);
+            }
+        }
+        if (!removed.isEmpty()) {
+            for (int node : removed) {
+                repair(node);
+            }
+            purgeDeletedLinks();
+            deletedCount += removed.size();
+            if (entryPoint >= 0 && deleted[entryPoint]) {
+                resetEntryPoint();
+            }
+        }
+
+        if (!addedRows.isEmpty()) {
+            ensureCapacity(nodeCount + addedRows.size());
+            int[] newNodes = new int[addedRows.size()];
+            for (int i = 0; i < newNodes.length; i++) {
+                int row = addedRows.get(i);
+                int node = nodeCount++;
+                long id = window.getIds()[row];
+                ids[node] = id;
+                offsets[node] = window.getVectorOffsets()[row];
+                rowOfNode[node] = row;
+                int level = randomLevel(id);
+                links[node] = new int[level + 1][];
+                for (int l = 0; l <= level; l++) {
+                    links[node][l] = new int[maxM(l) + 1];
+                }
+                nodeById.put(id, node);
+                newNodes[i] = node;
+            }
+            pool.submit(() -> IntStream.of(newNodes).parallel().forEach(this::insert)).join();
+        }
+        return new int[] {addedRows.size(), removed.size()};
+    }
+
+    /**
+     * 对窗口前 rows 行（按 create_time 降序，即最近的文章）做 eps 邻域查询，构建邻域图
+     * 只保留两端都在前 rows 行内的边
+     */
+    public NeighborGraph rangeGraph(int rows, float eps, int efSearch, ForkJoinPool pool) {
+        int[] nodeOfRow = new int[rows];
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted[node] && rowOfNode[node] >= 0 && rowOfNode[node] < rows) {
+                nodeOfRow[rowOfNode[node]] = node;
+            }
+        }
+        List<NeighborGraph.EdgeBuffer> buffers = rows == 0 ? List.of()
+            : pool.invoke(new RangeTask(nodeOfRow, rows, 1.0f - eps, Math.max(efSearch, 1), 0, rows));
+        return NeighborGraph.fromEdges(rows, buffers);
+    }
+
+    /**
+     * 查询行 [from, to) 的 eps 邻域
+     */
+    private class RangeTask extends RecursiveTask<List<NeighborGraph.EdgeBuffer>> {
+
+        private final int[] nodeOfRow;
+        private final int rows;
+        private final float minDot;
+        private final int ef;
+        private final int from;
+        private final int to;
+
+        RangeTask(int[] nodeOfRow, int rows, float minDot, int ef, int from, int to) {
+            this.nodeOfRow = nodeOfRow;
+            this.rows = rows;
+            this.minDot = minDot;
+            this.ef = ef;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<NeighborGraph.EdgeBuffer> compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                RangeTask left = new RangeTask(nodeOfRow, rows, minDot, ef, from, mid);
+                RangeTask right = new RangeTask(nodeOfRow, rows, minDot, ef, mid, to);
+                left.fork();
+                List<NeighborGraph.EdgeBuffer> result = new ArrayList<>(right.compute());
+                result.addAll(left.join());
+                return result;
+            }
+            NeighborGraph.EdgeBuffer edges = new NeighborGraph.EdgeBuffer();
+            IntList found = new IntList();
+            for (int row = from; row < to; row++) {
+                found.size = 0;
+                rangeSearch(nodeOfRow[row], minDot, ef, found);
+                for (int k = 0; k < found.size; k++) {
+                    int other = rowOfNode[found.data[k]];
+                    if (other > row && other < rows) {
+                        edges.add(row, other);
+                    } else if (other >= 0 && other < row) {
+                        edges.add(other, row);
+                    }
+                }
+            }
+            return List.of(edges);
+        }
+    }
+
+    /**
+     * 以 node 为查询点，收集相似度 >= minDot 的全部节点（不含自身）
+     */
+    private void rangeSearch(int node, float minDot, int ef, IntList found) {
+        int query = offsets[node];
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedy(query, ep, l);
+        }
+        Visited visited = VISITED.get();
+        visited.reset(nodeCount);
+        searchLayer(query, ep, ef, 0, visited, minDot, found);
+
+        // 从命中的点沿第 0 层扩展，直到邻域边界
+        int[] buffer = new int[maxM0];
+        for (int k = 0; k < found.size; k++) {
+            int count = copyLinks(found.data[k], 0, buffer);
+            for (int i = 0; i < count; i++) {
+                int next = buffer[i];
+                if (!deleted[next] && visited.visit(next) && dot(query, next) >= minDot) {
+                    found.add(next);
+                }
+            }
+        }
+        found.remove(node);
+    }
+
+    private void insert(int node) {
+        int level = links[node].length - 1;
+        int ep;
+        int top;
+        synchronized (entryLock) {
+            ep = entryPoint;
+            top = maxLevel;
+            if (ep < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+        }
+
+        int query = offsets[node];
+        for (int l = top; l > level; l--) {
+            ep = greedy(query, ep, l);
+        }
+        Visited visited = VISITED.get();
+        for (int l = Math.min(level, top); l >= 0; l--) {
+            visited.reset(nodeCount);
+            long[] candidates = searchLayer(query, ep, efConstruction, l, visited, Float.MAX_VALUE, null);
+            int[] selected = selectNeighbors(query, node, candidates, maxM(l));
+            synchronized (lock(node)) {
+                int[] list = links[node][l];
+                list[0] = selected.length;
+                System.arraycopy(selected, 0, list, 1, selected.length);
+            }
+            for (int neighbor : selected) {
+                connect(neighbor, node, l);
+            }
+            ep = nodeOf(candidates[0]);
+        }
+
+        if (level > top) {
+            synchronized (entryLock) {
+                if (level > maxLevel) {
+                    maxLevel = level;
+                    entryPoint = node;
+                }
+            }
+        }
+    }
+
+    /**
+     * 把 node 加入 target 在 level 层的邻居；已满时保留相似度最高的 maxM 个
+     * （反向连接不做启发式挑选，插入时的点积次数少一个数量级）
+     */
+    private void connect(int target, int node, int level) {
+        synchronized (lock(target)) {
+            int[] list = links[target][level];
+            int count = list[0];
+            if (count < maxM(level)) {
+                list[++count] = node;
+                list[0] = count;
+                return;
+            }
+            int base = offsets[target];
+            long[] candidates = new long[count + 1];
+            int size = 0;
+            for (int k = 1; k <= count; k++) {
+                if (!deleted[list[k]]) {
+                    candidates[size++] = key(dot(base, list[k]), list[k]);
+                }
+            }
+            candidates[size++] = key(dot(base, node), node);
+            candidates = Arrays.copyOf(candidates, size);
+            sortDescending(candidates);
+            count = Math.min(candidates.length, maxM(level));
+            list[0] = count;
+            for (int c = 0; c < count; c++) {
+                list[c + 1] = nodeOf(candidates[c]);
+            }
+        }
+    }
+
+    /**
+     * 删除节点后修补邻居：从原邻居和被删节点的邻居中重新挑选
+     */
+    private void repair(int node) {
+        int[][] levels = links[node];
+        for (int l = 0; l < levels.length; l++) {
+            int[] removedList = levels[l];
+            for (int k = 1; k <= removedList[0]; k++) {
+                int neighbor = removedList[k];
+                if (deleted[neighbor] || l >= links[neighbor].length) {
+                    continue;
+                }
+                int[] list = links[neighbor][l];
+                int base = offsets[neighbor];
+                Map<Integer, Long> candidates = new HashMap<>();
+                for (int c = 1; c <= list[0]; c++) {
+                    if (!deleted[list[c]]) {
+                        candidates.putIfAbsent(list[c], key(dot(base, list[c]), list[c]));
+                    }
+                }
+                for (int c = 1; c <= removedList[0]; c++) {
+                    int other = removedList[c];
+                    if (other != neighbor && !deleted[other] && !candidates.containsKey(other)) {
+                        candidates.put(other, key(dot(base, other), other));
+                    }
+                }
+                long[] sorted = candidates.values().stream().mapToLong(Long::longValue).toArray();
+                sortDescending(sorted);
+                // 与插入时相同的启发式挑选，保留通往其他区域的连接，避免删除后图被切断
+                int[] selected = selectNeighbors(base, neighbor, sorted, maxM(l));
+                list[0] = selected.length;
+                System.arraycopy(selected, 0, list, 1, selected.length);
+            }
+        }
+        links[node] = new int[0][];
+    }
+
+    /**
+     * 去掉所有指向已删除节点的连接（单向连接在 repair 中不会被覆盖到）
+     */
+    private void purgeDeletedLinks() {
+        for (int node = 0; node < nodeCount; node++) {
+            if (deleted[node]) {
+                continue;
+            }
+            for (int[] list : links[node]) {
+                int count = 0;
+                for (int k = 1; k <= list[0]; k++) {
+                    if (!deleted[list[k]]) {
+                        list[++count] = list[k];
+                    }
+                }
+                list[0] = count;
+            }
+        }
+    }
+
+    private void resetEntryPoint() {
+        int best = -1;
+        int bestLevel = -1;
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted[node] && links[node].length - 1 > bestLevel) {
+                best = node;
+                bestLevel = links[node].length - 1;
+            }
+        }
+        entryPoint = best;
+        maxLevel = bestLevel;
+    }
+
+    private int greedy(int query, int ep, int level) {
+        float best = dot(query, ep);
+        int[] buffer = new int[maxM0];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int count = copyLinks(ep, level, buffer);
+            for (int i = 0; i < count; i++) {
+                int next = buffer[i];
+                if (deleted[next]) {
+                    continue;
+                }
+                float sim = dot(query, next);
+                if (sim > best) {
+                    best = sim;
+                    ep = next;
+                    changed = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    /**
+     * 在 level 层做宽度为 ef 的最佳优先搜索，返回按相似度降序的结果
+     * found 不为空时，同时收集搜索过程中遇到的所有相似度 >= collectMin 的节点
+     */
+    private long[] searchLayer(int query, int ep, int ef, int level, Visited visited,
+                               float collectMin, IntList found) {
+        LongHeap candidates = new LongHeap();  // 存取反后的 key，堆顶为相似度最高的候选
+        LongHeap results = new LongHeap();     // 堆顶为结果中相似度最低的点
+        visited.visit(ep);
+        float epSim = dot(query, ep);
+        if (found != null && epSim >= collectMin) {
+            found.add(ep);
+        }
+        candidates.push(~key(epSim, ep));
+        results.push(key(epSim, ep));
+
+        int[] buffer = new int[maxM0];
+        while (candidates.size() > 0) {
+            long current = ~candidates.pop();
+            if (results.size() >= ef && similarity(current) < similarity(results.peek())) {
+                break;
+            }
+            int count = copyLinks(nodeOf(current), level, buffer);
+            for (int i = 0; i < count; i++) {
+                int next = buffer[i];
+                if (deleted[next] || !visited.visit(next)) {
+                    continue;
+                }
+                float sim = dot(query, next);
+                if (found != null && sim >= collectMin) {
+                    found.add(next);
+                }
+                if (results.size() < ef || sim > similarity(results.peek())) {
+                    long k = key(sim, next);
+                    candidates.push(~k);
+                    results.push(k);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+
+        long[] sorted = new long[results.size()];
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            sorted[i] = results.pop();
+        }
+        return sorted;
+    }
+
+    /**
+     * 启发式选邻居（HNSW 论文算法 4）：候选比已选邻居更接近查询点时才保留，不足时用被剪掉的候选补齐
+     */
+    private int[] selectNeighbors(int query, int self, long[] candidates, int max) {
+        int[] selected = new int[max];
+        int count = 0;
+        IntList pruned = new IntList();
+        for (long candidate : candidates) {
+            if (count == max) {
+                break;
+            }
+            int node = nodeOf(candidate);
+            if (node == self) {
+                continue;
+            }
+            float sim = similarity(candidate);
+            boolean good = true;
+            for (int j = 0; j < count; j++) {
+                if (dot(offsets[node], selected[j]) > sim) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) {
+                selected[count++] = node;
+            } else {
+                pruned.add(node);
+            }
+        }
+        for (int k = 0; k < pruned.size && count < max; k++) {
+            selected[count++] = pruned.data[k];
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    private int copyLinks(int node, int level, int[] buffer) {
+        synchronized (lock(node)) {
+            int[][] levels = links[node];
+            if (level >= levels.length) {
+                return 0;
+            }
+            int[] list = levels[level];
+            System.arraycopy(list, 1, buffer, 0, list[0]);
+            return list[0];
+        }
+    }
+
+    private float dot(int queryOffset, int node) {
+        return math.dot(vectors, queryOffset, offsets[node], dim);
+    }
+
+    private Object lock(int node) {
+        return locks[node & (LOCK_STRIPES - 1)];
+    }
+
+    private int maxM(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    /**
+     * 由文章ID确定性地生成层数（同一批文章重建索引得到相同的层次结构）
+     */
+    private int randomLevel(long id) {
+        long z = id + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        double u = ((z >>> 11) + 1) * 0x1.0p-53;
+        return Math.min((int) (-Math.log(u) * levelMult), 16);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        offsets = Arrays.copyOf(offsets, newCapacity);
+        rowOfNode = Arrays.copyOf(rowOfNode, newCapacity);
+        links = Arrays.copyOf(links, newCapacity);
+        deleted = Arrays.copyOf(deleted, newCapacity);
+    }
+
+    /**
+     * 相似度和节点号编码为一个 long，按相似度（再按节点号）排序
+     */
+    private static long key(float sim, int node) {
+        int bits = Float.floatToRawIntBits(sim);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | (node & 0xffffffffL);
+    }
+
+    private static float similarity(long key) {
+        int bits = (int) (key >>> 32);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return Float.intBitsToFloat(bits);
+    }
+
+    private static int nodeOf(long key) {
+        return (int) key;
+    }
+
+    private static void sortDescending(long[] keys) {
+        Arrays.sort(keys);
+        for (int i = 0, j = keys.length - 1; i < j; i++, j--) {
+            long tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+    }
+
+    /**
+     * 基本类型 long 小顶堆
+     */
+    private static class LongHeap {
+        private long[] data = new long[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return data[0];
+        }
+
+        void push(long value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (data[parent] <= value) {
+                    break;
+                }
+                data[i] = data[parent];
+                i = parent;
+            }
+            data[i] = value;
+        }
+
+        long pop() {
+            long top = data[0];
+            long last = data[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && data[child + 1] < data[child]) {
+                    child++;
+                }
+                if (last <= data[child]) {
+                    break;
+                }
+                data[i] = data[child];
+                i = child;
+            }
+            data[i] = last;
+            return top;
+        }
+    }
+
+    private static class IntList {
+        int[] data = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (data[i] == value) {
+                    data[i] = data[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 访问标记（按轮次编号，避免每次查询清零）
+     */
+    private static class Visited {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int size) {
+            if (marks.length < size) {
+                marks = new int[Math.max(size, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean visit(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
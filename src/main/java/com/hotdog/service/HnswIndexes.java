@@ -0,0 +1,100 @@
+package com.hotdog.service;
+
+import com.hotdog.model.SystemConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 按系统维护的 HNSW 索引（hotd_system_configs.hnsw_enabled = true 的系统使用近似 DBSCAN）
+ * 索引覆盖系统默认时间窗口，随 WindowVectorStore 增量同步；M 变化或已删除节点过多时重建
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HnswIndexes {
+
+    private final WindowVectorStore windowVectorStore;
+    private final VectorMath vectorMath;
+
+    @Value("${hotdog.clustering.hnsw.ef-construction:100}")
+    private int efConstruction;
+
+    private final Map<Long, HnswIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * 用 HNSW 邻域查询代替暴力计算，对最近 hours 小时的窗口做 DBSCAN
+     * 调用前需已刷新 WindowVectorStore 的系统默认窗口，hours 不能超过默认窗口
+     */
+    public ClusteringResult cluster(Long systemId, SystemConfig config, int hours, float eps, int minSamples,
+                                    ForkJoinPool pool) {
+        int m = config.getHnswM() != null ? config.getHnswM() : 16;
+        int efSearch = config.getHnswEfSearch() != null ? config.getHnswEfSearch() : 64;
+        long cutoff = System.currentTimeMillis() - hours * 3_600_000L;
+
+        HnswIndex index = indexes.compute(systemId, (id, existing) ->
+            existing != null && existing.getM() == m && existing.getDeletedCount() <= existing.size()
+                ? existing
+                : new HnswIndex(ArticleWindowLoader.EMBEDDING_DIM, m, efConstruction, vectorMath));
+
+        synchronized (index) {
+            return windowVectorStore.read(systemId, config.getDefaultHours(), full -> {
+                long start = System.currentTimeMillis();
+                int[] changes;
+                try {
+                    changes = index.sync(full, pool);
+                } catch (RuntimeException e) {
+                    // 同步中途失败的索引状态不完整，丢弃后下次重建
+                    indexes.remove(systemId, index);
+                    throw e;
+                }
+                long synced = System.currentTimeMillis();
+
+                // 窗口按 create_time 降序，最近 hours 小时的文章是前缀
+                int rows = 0;
+                while (rows < full.size() && full.getCreateTimes()[rows] >= cutoff) {
+                    rows++;
+                }
+                ArticleWindow window = rows == full.size() ? full
+                    : full.select(IntStream.range(0, rows).toArray());
+                int[] labels = null;
+                if (rows >= minSamples) {
+                    NeighborGraph graph = index.rangeGraph(rows, eps, efSearch, pool);
+                    labels = Dbscan.label(graph, minSamples);
+                }
+                log.debug("HNSW 聚类: systemId={}, window={}, added={}, removed={}, sync={}ms, query={}ms",
+                    systemId, rows, changes[0], changes[1], synced - start, System.currentTimeMillis() - synced);
+                return new ClusteringResult(window, labels);
+            });
+        }
+    }
+
+    /**
+     * 对不在常驻窗口范围内的窗口（如超过默认时间窗口的请求）临时建索引做一次聚类
+     */
+    public ClusteringResult clusterOnce(ArticleWindow window, SystemConfig config, float eps, int minSamples,
+                                        ForkJoinPool pool) {
+        if (window.size() < minSamples) {
+            return new ClusteringResult(window, null);
+        }
+        HnswIndex index = new HnswIndex(ArticleWindowLoader.EMBEDDING_DIM,
+            config.getHnswM() != null ? config.getHnswM() : 16, efConstruction, vectorMath);
+        index.sync(window, pool);
+        NeighborGraph graph = index.rangeGraph(window.size(), eps,
+            config.getHnswEfSearch() != null ? config.getHnswEfSearch() : 64, pool);
+        return new ClusteringResult(window, Dbscan.label(graph, minSamples));
+    }
+
+    /**
+     * 丢弃系统的索引
+     */
+    public void evict(Long systemId) {
+        indexes.remove(systemId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.hotdog.service;
+
+import com.hotdog.dto.HotEventResponseDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 将聚类标签汇总为热点事件
+ * 热度公式与 hotd_event_clusters_by_system 保持一致：total_weight * log2(1 + count)^1.8
+ */
+public final class HotEventAssembler {
+
+    private static final int SAMPLE_TITLE_COUNT = 4;
+
+    private HotEventAssembler() {
+    }
+
+    /**
+     * 按簇汇总，结果按 hot_score 降序排列并设置 rank
+     * 输入数组按 create_time 降序排列，簇标题取簇内最新的文章
+     */
+    public static List<HotEventResponseDTO> assemble(long[] ids, String[] titles, double[] weights, int[] labels) {
+        int clusterCount = 0;
+        for (int label : labels) {
+            clusterCount = Math.max(clusterCount, label + 1);
+        }
+
+        List<List<Integer>> members = new ArrayList<>(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            members.add(new ArrayList<>());
+        }
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] != Dbscan.NOISE) {
+                members.get(labels[i]).add(i);
+            }
+        }
+
+        List<HotEventResponseDTO> events = new ArrayList<>(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            List<Integer> cluster = members.get(c);
+            if (cluster.isEmpty()) {
+                continue;
+            }
+            int count = cluster.size();
+            double totalWeight = 0;
+            List<Long> articleIds = new ArrayList<>(count);
+            List<String> samples = new ArrayList<>(SAMPLE_TITLE_COUNT);
+            for (int i : cluster) {
+                totalWeight += weights[i];
+                articleIds.add(ids[i]);
+                if (samples.size() < SAMPLE_TITLE_COUNT) {
+                    samples.add(titles[i]);
+                }
+            }
+            double score = totalWeight * Math.pow(Math.log(1 + count) / Math.log(2), 1.8);
+
+            HotEventResponseDTO dto = new HotEventResponseDTO();
+            dto.setClusterId((long) c);
+            dto.setTitle(titles[cluster.get(0)]);
+            dto.setArticleCount((long) count);
+            dto.setTotalWeight(round(totalWeight, 4));
+            dto.setHotScore(round(score, 6));
+            dto.setSampleTitles(String.join(" | ", samples));
+            dto.setArticleIds(articleIds);
+            events.add(dto);
+        }
+
+        events.sort(Comparator.comparing(HotEventResponseDTO::getHotScore).reversed()
+            .thenComparing(HotEventResponseDTO::getClusterId));
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setRank(i + 1);
+        }
+        return events;
+    }
+
+    private static BigDecimal round(double value, int scale) {
+        return new BigDecimal(value).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+}
@@ -1,21 +1,28 @@
 package com.hotdog.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotdog.dto.HotEventResponseDTO;
 import com.hotdog.config.SystemContext;
 import com.hotdog.model.Article;
 import com.hotdog.model.HotEvent;
+import com.hotdog.model.SystemConfig;
 import com.hotdog.repository.ArticleRepository;
 import com.hotdog.repository.HotEventRepository;
+import com.hotdog.repository.SystemConfigRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Array;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 热点查询服务
@@ -25,9 +32,17 @@ import java.util.List;
 @Slf4j
 public class HotEventService {
     
+    private static final byte[] EMPTY_JSON_ARRAY = {'[', ']'};
+    
     private final HotEventRepository hotEventRepository;
     private final ArticleRepository articleRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final ClusteringEngine clusteringEngine;
+    private final RealtimeClusteringCache realtimeClusteringCache;
+    private final SystemConfigRepository systemConfigRepository;
+    private final HotEventSnapshotWriter hotEventSnapshotWriter;
+    private final HotEventSnapshotCache hotEventSnapshotCache;
+    private final ObjectMapper objectMapper;
     
     /**
      * 查询实时热点事件（调用聚类函数，支持多系统）
@@ -85,40 +100,17 @@ public class HotEventService {
     }
     
     /**
-     * 按系统查询实时热点事件
+     * 按系统查询实时热点事件（由聚类引擎计算；相同参数的并发请求合并，结果缓存到系统水位线前进）
      */
     public List<HotEventResponseDTO> getRealTimeHotEventsBySystem(
             Long systemId, Integer hours, Float eps, Integer minSamples, Integer limit) {
-        String sql = """
-            SELECT 
-                row_number() OVER (ORDER BY hot_score DESC) AS rank_no,
-                cluster_id, title, article_count, 
-                total_weight, hot_score, sample_titles, article_ids
-            FROM hotd_event_clusters_by_system(?, ?, ?, ?)
-            LIMIT ?
-        """;
-        
         try {
-            return jdbcTemplate.query(sql, 
-                new Object[]{systemId, hours, eps, minSamples, limit},
-                (rs, rowNum) -> {
-                    HotEventResponseDTO dto = new HotEventResponseDTO();
-                    dto.setRank(rs.getInt("rank_no"));
-                    dto.setClusterId(rs.getLong("cluster_id"));
-                    dto.setTitle(rs.getString("title"));
-                    dto.setArticleCount(rs.getLong("article_count"));
-                    dto.setTotalWeight(rs.getBigDecimal("total_weight"));
-                    dto.setHotScore(rs.getBigDecimal("hot_score"));
-                    dto.setSampleTitles(rs.getString("sample_titles"));
-                    
-                    Array articleIdsArray = rs.getArray("article_ids");
-                    if (articleIdsArray != null) {
-                        Long[] articleIds = (Long[]) articleIdsArray.getArray();
-                        dto.setArticleIds(Arrays.asList(articleIds));
-                    }
-                    
-                    return dto;
-                });
+            List<HotEventResponseDTO> events = realtimeClusteringCache.get(systemId, hours, eps, minSamples,
+                () -> clusteringEngine.cluster(systemId, hours, eps, minSamples));
+            if (limit != null && limit > 0 && events.size() > limit) {
+                return events.subList(0, limit);
+            }
+            return events;
         } catch (Exception e) {
             log.error("查询系统实时热点事件失败: systemId={}", systemId, e);
             throw new RuntimeException("查询系统实时热点事件失败: " + e.getMessage(), e);
@@ -153,15 +145,33 @@ public class HotEventService {
     }
     
     /**
-     * 按系统从快照表查询热点事件
+     * 查询热点事件快照并直接返回 JSON 数组（按系统查询时由内存缓存中预序列化的事件拼接，不访问数据库）
+     */
+    public byte[] getHotEventsSnapshotJson(Long systemId, Integer limit) {
+        if (systemId == null) {
+            systemId = SystemContext.getSystemId();
+        }
+        if (systemId != null) {
+            try {
+                return hotEventSnapshotCache.getJson(systemId, limit);
+            } catch (Exception e) {
+                log.error("从快照缓存查询系统热点事件失败: systemId={}", systemId, e);
+                return EMPTY_JSON_ARRAY;
+            }
+        }
+        try {
+            return objectMapper.writeValueAsBytes(getHotEventsFromSnapshot(null, limit));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("序列化热点快照失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 按系统从快照查询热点事件（内存缓存，快照刷新时通过 pg_notify 失效）
      */
     public List<HotEvent> getHotEventsFromSnapshotBySystem(Long systemId, Integer limit) {
         try {
-            List<HotEvent> events = hotEventRepository.findLatestSnapshotBySystem(systemId);
-            if (limit != null && limit > 0 && events.size() > limit) {
-                return events.subList(0, limit);
-            }
-            return events;
+            return hotEventSnapshotCache.getEvents(systemId, limit);
         } catch (Exception e) {
             log.error("从快照表查询系统热点事件失败: systemId={}", systemId, e);
             return new ArrayList<>();
@@ -170,8 +180,8 @@ public class HotEventService {
     
     /**
      * 手动刷新热点快照（支持多系统）
+     * 聚类只执行一次，快照和文章关联由 HotEventSnapshotWriter 在同一个事务内用 COPY 写入
      */
-    @Transactional
     public void refreshHotEventSnapshot(Long systemId) {
         // 如果没有指定 systemId，从上下文获取
         if (systemId == null) {
@@ -184,8 +194,24 @@ public class HotEventService {
         
         log.info("开始刷新系统热点快照: systemId={}", systemId);
         try {
-            jdbcTemplate.execute("SELECT hotd_refresh_snapshot_by_system(" + systemId + ")");
-            log.info("系统热点快照刷新完成: systemId={}", systemId);
+            Long id = systemId;
+            SystemConfig config = systemConfigRepository.findBySystemId(systemId)
+                .orElseThrow(() -> new RuntimeException("系统配置不存在: system_id=" + id));
+            OffsetDateTime snapshotTime = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+            long start = System.currentTimeMillis();
+            List<HotEventResponseDTO> events = clusteringEngine.cluster(systemId,
+                config.getDefaultHours(), config.getDefaultEps(), config.getDefaultMinSamples());
+            int snapshotLimit = config.getSnapshotLimit() != null ? config.getSnapshotLimit() : 100;
+            if (events.size() > snapshotLimit) {
+                events = events.subList(0, snapshotLimit);
+            }
+            long clustered = System.currentTimeMillis();
+
+            long articles = hotEventSnapshotWriter.write(systemId, snapshotTime, config.getDefaultHours(), events);
+            log.info("系统热点快照刷新完成: systemId={}, events={}, articles={}, 聚类 {}ms, 写入 {}ms",
+                systemId, events.size(), articles, clustered - start,
+                System.currentTimeMillis() - clustered);
         } catch (Exception e) {
             log.error("刷新系统热点快照失败: systemId={}", systemId, e);
             throw new RuntimeException("刷新系统热点快照失败: " + e.getMessage(), e);
@@ -208,14 +234,12 @@ public class HotEventService {
         String sql = """
             SELECT a.id, a.title, a.summary, a.full_text, a.weight, 
                    a.create_time, a.source, a.attr
-            FROM hotd_event_snapshot es
-            JOIN hotd_event_articles ea ON es.snapshot_time = ea.snapshot_time 
-                                        AND es.rank_no = ea.rank_no
-                                        AND es.system_id = ea.system_id
+            FROM hotd_event_snapshot_current c
+            JOIN hotd_event_articles ea ON ea.snapshot_time = c.snapshot_time
+                                        AND ea.system_id = c.system_id
             JOIN hotd_articles a ON ea.article_id = a.id
-            WHERE es.snapshot_time = (SELECT MAX(snapshot_time) FROM hotd_event_snapshot WHERE system_id = ?)
-              AND es.system_id = ?
-              AND es.rank_no = ?
+            WHERE c.system_id = ?
+              AND ea.rank_no = ?
               AND a.is_deleted = false
             ORDER BY a.weight DESC, a.create_time DESC
             LIMIT ?
@@ -223,7 +247,7 @@ public class HotEventService {
         
         try {
             return jdbcTemplate.query(sql, 
-                new Object[]{systemId, systemId, rankNo, limit},
+                new Object[]{systemId, rankNo, limit},
                 (rs, rowNum) -> {
                     Article article = new Article();
                     article.setId(rs.getLong("id"));
@@ -243,8 +267,11 @@ public class HotEventService {
     
     /**
      * 根据聚类ID获取实时热点事件的原始文章列表（支持多系统）
+     * 携带实时接口返回的 resultToken 时按令牌取回同一次聚类的簇成员，只做一次 findByIdIn；
+     * 没有令牌或令牌已过期时退回当前（缓存的）实时聚类结果，此时簇编号可能与调用方看到的不一致
      */
-    public List<Article> getRealTimeHotEventArticles(Long systemId, Long clusterId, Integer hours, Integer limit) {
+    public List<Article> getRealTimeHotEventArticles(Long systemId, Long clusterId, Integer hours, String token,
+                                                     Integer limit) {
         // 如果没有指定 systemId，从上下文获取
         if (systemId == null) {
             systemId = SystemContext.getSystemId();
@@ -254,31 +281,29 @@ public class HotEventService {
             throw new RuntimeException("系统ID不能为空");
         }
         
-        String sql = """
-            SELECT a.id, a.title, a.summary, a.full_text, a.weight, 
-                   a.create_time, a.source, a.attr
-            FROM hotd_event_clusters_by_system(?, ?, NULL, NULL) ec
-            CROSS JOIN LATERAL unnest(ec.article_ids) AS article_id
-            JOIN hotd_articles a ON a.id = article_id
-            WHERE ec.cluster_id = ?
-            ORDER BY a.weight DESC, a.create_time DESC
-            LIMIT ?
-        """;
-        
         try {
-            return jdbcTemplate.query(sql, 
-                new Object[]{systemId, hours != null ? hours : 24, clusterId, limit},
-                (rs, rowNum) -> {
-                    Article article = new Article();
-                    article.setId(rs.getLong("id"));
-                    article.setTitle(rs.getString("title"));
-                    article.setSummary(rs.getString("summary"));
-                    article.setFullText(rs.getString("full_text"));
-                    article.setWeight(rs.getBigDecimal("weight"));
-                    article.setCreateTime(rs.getTimestamp("create_time").toLocalDateTime());
-                    article.setSource(rs.getString("source"));
-                    return article;
-                });
+            List<Long> articleIds = token != null
+                ? realtimeClusteringCache.resolveMembers(token, systemId, clusterId) : null;
+            if (articleIds == null) {
+                if (token != null) {
+                    log.debug("实时聚类结果令牌已失效，重新取聚类结果: systemId={}, token={}", systemId, token);
+                }
+                articleIds = getRealTimeHotEventsBySystem(systemId, hours, null, null, null).stream()
+                    .filter(event -> clusterId.equals(event.getClusterId()))
+                    .findFirst()
+                    .map(HotEventResponseDTO::getArticleIds)
+                    .orElse(List.of());
+            }
+            if (articleIds == null || articleIds.isEmpty()) {
+                return List.of();
+            }
+            
+            return articleRepository.findByIdIn(articleIds).stream()
+                .filter(article -> !Boolean.TRUE.equals(article.getIsDeleted()))
+                .sorted(Comparator.comparing(Article::getWeight, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Article::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(limit != null && limit > 0 ? limit : Long.MAX_VALUE)
+                .collect(Collectors.toList());
         } catch (Exception e) {
             log.error("获取系统实时热点事件文章列表失败: systemId={}, clusterId={}", systemId, clusterId, e);
             throw new RuntimeException("获取系统实时热点事件文章列表失败: " + e.getMessage(), e);
@@ -0,0 +1,239 @@
+package com.hotdog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotdog.model.HotEvent;
+import com.hotdog.repository.HotEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 热点快照内存缓存
+ * 每个系统缓存当前版本快照的不可变副本，每个事件预先序列化为 JSON，/snapshot 直接拼接字节返回。
+ * 快照刷新提交时发出 pg_notify('hotd_snapshot_refreshed', system_id)，各节点通过专用连接 LISTEN 后重新加载；
+ * LISTEN 连接断开期间不使用缓存（直接查库），重连后全部重新加载，避免漏掉通知导致数据过期。
+ * 未缓存的系统在加载期间收到通知时不安装加载结果（每个系统的通知序号和连接代数在加载前后比较），避免把旧版本装进缓存
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotEventSnapshotCache {
+
+    static final String CHANNEL = "hotd_snapshot_refreshed";
+
+    private final HotEventRepository hotEventRepository;
+    private final ObjectMapper objectMapper;
+    private final DataSourceProperties dataSourceProperties;
+
+    @Value("${hotdog.snapshot.cache.enabled:true}")
+    private boolean enabled;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Long> notifySequences = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean listening;
+    private volatile boolean running;
+    private Thread listener;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listenLoop, "hotd-snapshot-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * 系统当前快照的前 limit 个事件
+     */
+    public List<HotEvent> getEvents(Long systemId, Integer limit) {
+        List<HotEvent> events = get(systemId).events;
+        if (limit != null && limit > 0 && events.size() > limit) {
+            return events.subList(0, limit);
+        }
+        return events;
+    }
+
+    /**
+     * 系统当前快照前 limit 个事件的 JSON 数组（由预序列化的事件拼接，不再序列化）
+     */
+    public byte[] getJson(Long systemId, Integer limit) {
+        return get(systemId).json(limit);
+    }
+
+    private Entry get(Long systemId) {
+        if (!listening) {
+            return load(systemId);
+        }
+        Entry entry = entries.get(systemId);
+        if (entry != null) {
+            return entry;
+        }
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long sequence = notifySequences.getOrDefault(systemId, 0L);
+            long gen = generation.get();
+            Entry loaded = load(systemId);
+            // 加载期间收到该系统的刷新通知（或监听连接重建过），加载结果可能是旧版本，重新加载
+            if (listening && gen == generation.get() && sequence == notifySequences.getOrDefault(systemId, 0L)) {
+                return install(systemId, loaded);
+            }
+            entry = loaded;
+        }
+        return entry;
+    }
+
+    private Entry load(Long systemId) {
+        List<HotEvent> events = hotEventRepository.findLatestSnapshotBySystem(systemId);
+        byte[][] elements = new byte[events.size()][];
+        try {
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = objectMapper.writeValueAsBytes(events.get(i));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("序列化热点快照失败: " + e.getMessage(), e);
+        }
+        LocalDateTime snapshotTime = events.isEmpty() ? null : events.get(0).getSnapshotTime();
+        return new Entry(snapshotTime, List.copyOf(events), elements);
+    }
+
+    /**
+     * 安装新加载的快照；当前版本指针不会回退，并发加载时保留较新的版本
+     */
+    private Entry install(Long systemId, Entry fresh) {
+        return entries.merge(systemId, fresh, (old, loaded) ->
+            old.snapshotTime != null && (loaded.snapshotTime == null || loaded.snapshotTime.isBefore(old.snapshotTime))
+                ? old : loaded);
+    }
+
+    private void listenLoop() {
+        long backoff = 1000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                generation.incrementAndGet();
+
+                // 断线期间可能漏掉通知，重新加载已缓存的系统
+                for (Long systemId : entries.keySet()) {
+                    entries.put(systemId, load(systemId));
+                }
+                listening = true;
+                backoff = 1000;
+                log.info("快照缓存已开始监听: channel={}", CHANNEL);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(10_000);
+                    if (notifications == null || notifications.length == 0) {
+                        // 超时无通知时探测一次连接，避免连接已断开却一直阻塞
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        reload(notification.getParameter());
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("快照缓存监听连接异常，{}ms 后重连: {}", backoff, e.getMessage());
+            } finally {
+                listening = false;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoff = Math.min(backoff * 2, 30_000);
+        }
+    }
+
+    private void reload(String payload) {
+        try {
+            Long systemId = Long.parseLong(payload);
+            notifySequences.merge(systemId, 1L, Long::sum);
+            if (entries.containsKey(systemId)) {
+                install(systemId, load(systemId));
+                log.debug("快照缓存已重新加载: systemId={}", systemId);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("无效的快照刷新通知: {}", payload);
+        } catch (Exception e) {
+            // 加载失败时丢弃缓存，下次请求重新加载
+            log.error("重新加载快照缓存失败: payload={}", payload, e);
+            entries.remove(Long.parseLong(payload));
+        }
+    }
+
+    /**
+     * 单个系统的快照（不可变）
+     */
+    private static class Entry {
+        final LocalDateTime snapshotTime;
+        final List<HotEvent> events;
+        final byte[][] elements;
+        final byte[] full;
+
+        Entry(LocalDateTime snapshotTime, List<HotEvent> events, byte[][] elements) {
+            this.snapshotTime = snapshotTime;
+            this.events = events;
+            this.elements = elements;
+            this.full = concat(elements, elements.length);
+        }
+
+        byte[] json(Integer limit) {
+            if (limit == null || limit <= 0 || limit >= elements.length) {
+                return full;
+            }
+            return concat(elements, limit);
+        }
+
+        private static byte[] concat(byte[][] elements, int count) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.writeBytes(elements[i]);
+            }
+            out.write(']');
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.hotdog.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 快照旧版本清理
+ * 刷新只追加新版本并切换指针，超过保留时间且不是当前版本的快照在这里批量删除（文章关联行级联删除）
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotEventSnapshotCleaner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 旧版本保留时间（分钟），保证正在分页读取旧版本的请求不会读到一半被删除
+     */
+    @Value("${hotdog.snapshot.retention-minutes:60}")
+    private int retentionMinutes;
+
+    @Scheduled(fixedDelayString = "${hotdog.snapshot.gc-interval-ms:300000}",
+               initialDelayString = "${hotdog.snapshot.gc-interval-ms:300000}")
+    public void cleanup() {
+        try {
+            Long deleted = jdbcTemplate.queryForObject(
+                "SELECT hotd_gc_event_snapshots(make_interval(mins => ?))", Long.class, retentionMinutes);
+            if (deleted != null && deleted > 0) {
+                log.info("清理过期快照版本: {} 行", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理过期快照版本失败", e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hotdog.service;
+
+import com.hotdog.dto.HotEventResponseDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热点快照写入
+ * 每次刷新以 snapshot_time 为版本号写入新版本（快照行和文章关联行通过 COPY 批量写入），
+ * 在同一事务内切换 hotd_event_snapshot_current 指针；读取方不会看到空的或写了一半的快照，
+ * 旧版本由 HotEventSnapshotCleaner 异步清理
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotEventSnapshotWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    /**
+     * 把 events（已按 hot_score 排序并截断）写为系统的新快照版本，并切换为当前版本
+     *
+     * @return 写入的文章关联行数
+     */
+    @Transactional
+    public long write(Long systemId, OffsetDateTime snapshotTime, int hoursWindow,
+                      List<HotEventResponseDTO> events) {
+        Map<Long, BigDecimal> weights = loadWeights(events);
+
+        StringBuilder snapshotRows = new StringBuilder();
+        StringBuilder articleRows = new StringBuilder();
+        long articleCount = 0;
+        for (int i = 0; i < events.size(); i++) {
+            HotEventResponseDTO event = events.get(i);
+            int rankNo = i + 1;
+            snapshotRows.append(snapshotTime).append(',')
+                .append(rankNo).append(',')
+                .append(systemId).append(',')
+                .append(event.getClusterId()).append(',')
+                .append(CopyCsv.text(event.getTitle())).append(',')
+                .append(event.getArticleCount()).append(',')
+                .append(CopyCsv.number(event.getTotalWeight())).append(',')
+                .append(CopyCsv.number(event.getHotScore())).append(',')
+                .append(CopyCsv.text(event.getSampleTitles())).append(',')
+                .append(hoursWindow).append('\n');
+            if (event.getArticleIds() == null) {
+                continue;
+            }
+            for (Long articleId : event.getArticleIds()) {
+                BigDecimal weight = weights.getOrDefault(articleId, BigDecimal.ONE);
+                articleRows.append(snapshotTime).append(',')
+                    .append(rankNo).append(',')
+                    .append(systemId).append(',')
+                    .append(event.getClusterId()).append(',')
+                    .append(articleId).append(',')
+                    .append(CopyCsv.number(weight)).append('\n');
+                articleCount++;
+            }
+        }
+
+        // COPY 必须走当前事务绑定的连接
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            copyManager.copyIn("""
+                COPY hotd_event_snapshot (snapshot_time, rank_no, system_id, cluster_id, title,
+                                          article_count, total_weight, hot_score, sample_titles, hours_window)
+                FROM STDIN WITH (FORMAT csv)
+                """, new StringReader(snapshotRows.toString()));
+            copyManager.copyIn("""
+                COPY hotd_event_articles (snapshot_time, rank_no, system_id, cluster_id, article_id, article_weight)
+                FROM STDIN WITH (FORMAT csv)
+                """, new StringReader(articleRows.toString()));
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("写入热点快照失败: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+
+        // 切换当前版本指针（并发刷新时不回退到更旧的版本），随事务提交一起生效
+        jdbcTemplate.update("""
+            INSERT INTO hotd_event_snapshot_current (system_id, snapshot_time, update_time)
+            VALUES (?, ?, now())
+            ON CONFLICT (system_id) DO UPDATE
+            SET snapshot_time = EXCLUDED.snapshot_time, update_time = now()
+            WHERE hotd_event_snapshot_current.snapshot_time < EXCLUDED.snapshot_time
+            """, systemId, snapshotTime);
+
+        // 通知各节点重新加载快照缓存（NOTIFY 在事务提交时才发送）
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)",
+            HotEventSnapshotCache.CHANNEL, String.valueOf(systemId));
+        return articleCount;
+    }
+
+    /**
+     * 读取簇内文章的原始权重（与 SQL 版本一致：权重为空时记为 1.0）
+     */
+    private Map<Long, BigDecimal> loadWeights(List<HotEventResponseDTO> events) {
+        List<Long> ids = new ArrayList<>();
+        for (HotEventResponseDTO event : events) {
+            if (event.getArticleIds() != null) {
+                ids.addAll(event.getArticleIds());
+            }
+        }
+        Map<Long, BigDecimal> weights = new HashMap<>();
+        if (ids.isEmpty()) {
+            return weights;
+        }
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT id, weight FROM hotd_articles WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, rs -> {
+            BigDecimal weight = rs.getBigDecimal("weight");
+            weights.put(rs.getLong("id"), weight != null ? weight : BigDecimal.ONE);
+        });
+        return weights;
+    }
+}
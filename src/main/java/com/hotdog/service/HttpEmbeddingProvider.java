@@ -0,0 +1,111 @@
+package com.hotdog.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通过 HTTP 接口向量化，协议与 hotd_embed_articles_batch_by_system_via_api 相同：
+ * 请求 {"texts": [...], "model": "..."}，响应支持 {"embeddings": [...]}、{"data": [{"embedding": [...]}]} 或数组
+ */
+@Component
+@ConditionalOnProperty(name = "hotdog.embedding.provider", havingValue = "http", matchIfMissing = true)
+@RequiredArgsConstructor
+public class HttpEmbeddingProvider implements EmbeddingProvider {
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Value("${hotdog.embedding.api-url:http://localhost:8000/api/embedding}")
+    private String apiUrl;
+
+    @Value("${hotdog.embedding.api-key:}")
+    private String apiKey;
+
+    @Value("${hotdog.embedding.model-name:BAAI/bge-large-zh-v1.5}")
+    private String modelName;
+
+    @Value("${hotdog.embedding.timeout-ms:300000}")
+    private long timeoutMs;
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public String cacheKey() {
+        return modelName != null && !modelName.isEmpty() ? modelName : "api:" + apiUrl;
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("texts", texts);
+        if (modelName != null && !modelName.isEmpty()) {
+            body.put("model", modelName);
+        }
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(apiUrl))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            if (apiKey != null && !apiKey.isEmpty()) {
+                request.header("Authorization", "Bearer " + apiKey);
+            }
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new RuntimeException("向量化 API 调用失败 (状态码 " + response.statusCode() + "): "
+                    + new String(response.body()));
+            }
+            List<float[]> vectors = parse(objectMapper.readTree(response.body()));
+            if (vectors.size() != texts.size()) {
+                throw new RuntimeException("向量化 API 返回的向量数量 (" + vectors.size()
+                    + ") 与请求的文本数量 (" + texts.size() + ") 不匹配");
+            }
+            return vectors;
+        } catch (IOException e) {
+            throw new RuntimeException("无法调用向量化 API " + apiUrl + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("向量化 API 调用被中断", e);
+        }
+    }
+
+    private static List<float[]> parse(JsonNode root) {
+        JsonNode items;
+        if (root.has("embeddings")) {
+            items = root.get("embeddings");
+        } else if (root.has("data")) {
+            items = root.get("data");
+        } else if (root.isArray()) {
+            items = root;
+        } else {
+            throw new RuntimeException("无法解析向量化 API 响应格式");
+        }
+        List<float[]> vectors = new ArrayList<>(items.size());
+        for (JsonNode item : items) {
+            JsonNode values = item.isObject() ? item.get("embedding") : item;
+            float[] vector = new float[values.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) values.get(i).asDouble();
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+}
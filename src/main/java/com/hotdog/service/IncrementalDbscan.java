@@ -0,0 +1,379 @@
+package com.hotdog.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 增量 DBSCAN（单个系统的常驻聚类状态）
+ * 保存窗口内每个点的 eps 邻域、核心点标记和簇标签；插入新点、过期旧点后
+ * 只对受影响的邻域重新打标签，距离计算量与变更量成正比，而不是与整个窗口成正比。
+ * 不保存向量：每次变更时从传入的窗口（WindowVectorStore 的堆外视图）读取；
+ * 首次构建或新增点超过窗口一半时，用 NeighborGraph 在系统的线程池中分块并行重建整个状态
+ *
+ * 非线程安全，由调用方加锁
+ */
+public class IncrementalDbscan {
+
+    private static final int UNASSIGNED = Dbscan.NOISE;
+
+    private final int dim;
+    private final VectorMath math;
+    private final float eps;
+    private final int minSamples;
+
+    private int capacity;
+    private long[] ids;
+    private double[] weights;
+    private long[] createTimes;
+    private boolean[] alive;
+    private int[][] neighbors;
+    private int[] neighborCounts;
+    private int[] labels;
+
+    private int highWater;
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private int nextLabel;
+
+    public IncrementalDbscan(int dim, float eps, int minSamples, VectorMath math) {
+        this.dim = dim;
+        this.math = math;
+        this.eps = eps;
+        this.minSamples = minSamples;
+        allocate(1024);
+    }
+
+    public float getEps() {
+        return eps;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    public boolean contains(long id) {
+        return slotById.containsKey(id);
+    }
+
+    public Set<Long> ids() {
+        return slotById.keySet();
+    }
+
+    /**
+     * 与当前窗口同步：过期不在窗口中的点，已有的点刷新权重（权重不影响标签，只影响热度汇总），
+     * 插入新点（向量需已归一化，与窗口内所有点的点积在 pool 中并行计算），最后局部重新打标签
+     *
+     * @return 本次 {新增数, 过期数, 重新打标签的点数}
+     */
+    public int[] apply(ArticleWindow window, ForkJoinPool pool) {
+        Set<Long> current = new HashSet<>();
+        for (long id : window.getIds()) {
+            current.add(id);
+        }
+        List<Long> removedIds = new ArrayList<>();
+        for (Long id : slotById.keySet()) {
+            if (!current.contains(id)) {
+                removedIds.add(id);
+            }
+        }
+        int n = window.size();
+        int[] newRows = IntStream.range(0, n).filter(row -> !slotById.containsKey(window.getIds()[row])).toArray();
+        if (newRows.length * 2 >= n) {
+            rebuild(window, pool);
+            return new int[] {newRows.length, removedIds.size(), n};
+        }
+
+        Set<Integer> affected = new HashSet<>();
+        for (Long id : removedIds) {
+            remove(slotById.remove(id), affected);
+        }
+        int[] slotOfRow = new int[n];
+        for (int row = 0; row < n; row++) {
+            Integer existing = slotById.get(window.getIds()[row]);
+            if (existing != null) {
+                weights[existing] = window.getWeights()[row];
+                slotOfRow[row] = existing;
+            }
+        }
+        boolean[] isNew = new boolean[n];
+        for (int row : newRows) {
+            slotOfRow[row] = insert(window, row);
+            isNew[row] = true;
+            affected.add(slotOfRow[row]);
+        }
+
+        // 新点与窗口内所有点的邻居行号；新点之间的边只从行号小的一侧加入，避免重复
+        int[][] found = neighborRows(window, newRows, pool);
+        for (int i = 0; i < newRows.length; i++) {
+            int slot = slotOfRow[newRows[i]];
+            for (int row : found[i]) {
+                if (row == newRows[i] || (isNew[row] && row < newRows[i])) {
+                    continue;
+                }
+                int other = slotOfRow[row];
+                addNeighbor(slot, other);
+                addNeighbor(other, slot);
+                affected.add(other);
+            }
+        }
+        affected.removeIf(slot -> !alive[slot]);
+        int relabeled = affected.isEmpty() ? 0 : relabel(affected);
+        return new int[] {newRows.length, removedIds.size(), relabeled};
+    }
+
+    /**
+     * 导出当前聚类结果（按 create_time 降序，不含向量和标题），供 HotEventAssembler 汇总
+     * 标签按原有编号顺序压缩为连续编号
+     */
+    public ArticleWindow exportWindow(int[] denseLabelsOut) {
+        Integer[] order = slotById.values().toArray(new Integer[0]);
+        Arrays.sort(order, (a, b) -> Long.compare(createTimes[b], createTimes[a]));
+
+        Map<Integer, Integer> dense = new HashMap<>();
+        TreeSet<Integer> usedLabels = new TreeSet<>();
+        for (int slot : order) {
+            if (labels[slot] != UNASSIGNED) {
+                usedLabels.add(labels[slot]);
+            }
+        }
+        for (int label : usedLabels) {
+            dense.put(label, dense.size());
+        }
+
+        int n = order.length;
+        long[] outIds = new long[n];
+        double[] outWeights = new double[n];
+        long[] outCreateTimes = new long[n];
+        for (int i = 0; i < n; i++) {
+            int slot = order[i];
+            outIds[i] = ids[slot];
+            outWeights[i] = weights[slot];
+            outCreateTimes[i] = createTimes[slot];
+            denseLabelsOut[i] = labels[slot] == UNASSIGNED ? Dbscan.NOISE : dense.get(labels[slot]);
+        }
+        return new ArticleWindow(outIds, new String[n], outWeights, outCreateTimes, null, null, dim);
+    }
+
+    /**
+     * 全量重建：NeighborGraph 并行构建邻域图，Dbscan.label 打标签，槽位号即窗口行号
+     */
+    private void rebuild(ArticleWindow window, ForkJoinPool pool) {
+        int n = window.size();
+        NeighborGraph graph = NeighborGraph.build(window, eps, math, pool);
+        int[] fitted = Dbscan.label(graph, minSamples);
+
+        slotById.clear();
+        freeSlots.clear();
+        if (capacity < n) {
+            capacity = 0;
+            ids = null;
+            weights = null;
+            createTimes = null;
+            alive = null;
+            neighbors = null;
+            neighborCounts = null;
+            labels = null;
+            allocate(Math.max(n, 1024));
+        } else {
+            Arrays.fill(alive, false);
+            Arrays.fill(neighbors, null);
+            Arrays.fill(neighborCounts, 0);
+        }
+        nextLabel = 0;
+        for (int row = 0; row < n; row++) {
+            ids[row] = window.getIds()[row];
+            weights[row] = window.getWeights()[row];
+            createTimes[row] = window.getCreateTimes()[row];
+            alive[row] = true;
+            int degree = graph.degree(row);
+            neighbors[row] = new int[Math.max(degree, 8)];
+            for (int k = 0; k < degree; k++) {
+                neighbors[row][k] = graph.neighbor(row, k);
+            }
+            neighborCounts[row] = degree;
+            labels[row] = fitted[row];
+            nextLabel = Math.max(nextLabel, fitted[row] + 1);
+            slotById.put(ids[row], row);
+        }
+        highWater = n;
+    }
+
+    /**
+     * 占用一个槽位存放新点（只含自身作为邻居，边由调用方加入）
+     */
+    private int insert(ArticleWindow window, int row) {
+        int slot = freeSlots.isEmpty() ? highWater++ : freeSlots.poll();
+        if (slot >= capacity) {
+            allocate(capacity * 2);
+        }
+        ids[slot] = window.getIds()[row];
+        weights[slot] = window.getWeights()[row];
+        createTimes[slot] = window.getCreateTimes()[row];
+        alive[slot] = true;
+        labels[slot] = UNASSIGNED;
+        neighborCounts[slot] = 0;
+        neighbors[slot] = new int[8];
+        addNeighbor(slot, slot);
+        slotById.put(ids[slot], slot);
+        return slot;
+    }
+
+    /**
+     * 每个新点在窗口中的 eps 邻居（行号，含自身），按新点并行
+     */
+    private int[][] neighborRows(ArticleWindow window, int[] newRows, ForkJoinPool pool) {
+        int n = window.size();
+        float minDot = 1.0f - eps;
+        int[][] found = new int[newRows.length][];
+        pool.submit(() -> IntStream.range(0, newRows.length).parallel().forEach(i -> {
+            float[] dots = new float[n];
+            math.dotMany(window.getVectors(), window.getVectorOffsets()[newRows[i]], window.getVectorOffsets(),
+                0, n, window.getDim(), dots);
+            int[] rows = new int[8];
+            int count = 0;
+            for (int row = 0; row < n; row++) {
+                if (dots[row] >= minDot) {
+                    rows = ensure(rows, count + 1);
+                    rows[count++] = row;
+                }
+            }
+            found[i] = Arrays.copyOf(rows, count);
+        })).join();
+        return found;
+    }
+
+    private void remove(int slot, Set<Integer> affected) {
+        for (int k = 0; k < neighborCounts[slot]; k++) {
+            int other = neighbors[slot][k];
+            if (other != slot) {
+                removeNeighbor(other, slot);
+                affected.add(other);
+            }
+        }
+        alive[slot] = false;
+        labels[slot] = UNASSIGNED;
+        neighbors[slot] = null;
+        neighborCounts[slot] = 0;
+        freeSlots.add(slot);
+    }
+
+    /**
+     * 局部重新打标签：受影响点及其邻居所在的簇整体重置，再从其中的核心点扩展
+     */
+    private int relabel(Set<Integer> affected) {
+        Set<Integer> dirtyLabels = new HashSet<>();
+        for (int slot : affected) {
+            if (labels[slot] != UNASSIGNED) {
+                dirtyLabels.add(labels[slot]);
+            }
+            for (int k = 0; k < neighborCounts[slot]; k++) {
+                int label = labels[neighbors[slot][k]];
+                if (label != UNASSIGNED) {
+                    dirtyLabels.add(label);
+                }
+            }
+        }
+
+        Set<Integer> reset = new HashSet<>(affected);
+        if (!dirtyLabels.isEmpty()) {
+            for (int slot : slotById.values()) {
+                if (labels[slot] != UNASSIGNED && dirtyLabels.contains(labels[slot])) {
+                    reset.add(slot);
+                }
+            }
+        }
+        for (int slot : reset) {
+            labels[slot] = UNASSIGNED;
+        }
+
+        int[] stack = new int[reset.size() + 1];
+        for (int seed : reset) {
+            if (labels[seed] != UNASSIGNED || !isCore(seed)) {
+                continue;
+            }
+            int label = nextLabel++;
+            int top = 0;
+            stack = ensure(stack, top + 1);
+            stack[top++] = seed;
+            labels[seed] = label;
+            while (top > 0) {
+                int p = stack[--top];
+                if (!isCore(p)) {
+                    continue;
+                }
+                for (int k = 0; k < neighborCounts[p]; k++) {
+                    int q = neighbors[p][k];
+                    if (labels[q] == UNASSIGNED) {
+                        labels[q] = label;
+                        stack = ensure(stack, top + 1);
+                        stack[top++] = q;
+                    }
+                }
+            }
+        }
+
+        // 未被扩展到的边界点挂到任一相邻核心点所在的簇（可能是未受影响的簇）
+        for (int slot : reset) {
+            if (labels[slot] != UNASSIGNED) {
+                continue;
+            }
+            for (int k = 0; k < neighborCounts[slot]; k++) {
+                int q = neighbors[slot][k];
+                if (isCore(q) && labels[q] != UNASSIGNED) {
+                    labels[slot] = labels[q];
+                    break;
+                }
+            }
+        }
+        return reset.size();
+    }
+
+    private boolean isCore(int slot) {
+        return neighborCounts[slot] >= minSamples;
+    }
+
+    private void addNeighbor(int slot, int other) {
+        if (neighborCounts[slot] == neighbors[slot].length) {
+            neighbors[slot] = Arrays.copyOf(neighbors[slot], neighborCounts[slot] * 2);
+        }
+        neighbors[slot][neighborCounts[slot]++] = other;
+    }
+
+    private void removeNeighbor(int slot, int other) {
+        int[] list = neighbors[slot];
+        for (int k = 0; k < neighborCounts[slot]; k++) {
+            if (list[k] == other) {
+                list[k] = list[--neighborCounts[slot]];
+                return;
+            }
+        }
+    }
+
+    private static int[] ensure(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    private void allocate(int newCapacity) {
+        ids = ids == null ? new long[newCapacity] : Arrays.copyOf(ids, newCapacity);
+        weights = weights == null ? new double[newCapacity] : Arrays.copyOf(weights, newCapacity);
+        createTimes = createTimes == null ? new long[newCapacity] : Arrays.copyOf(createTimes, newCapacity);
+        alive = alive == null ? new boolean[newCapacity] : Arrays.copyOf(alive, newCapacity);
+        neighbors = neighbors == null ? new int[newCapacity][] : Arrays.copyOf(neighbors, newCapacity);
+        neighborCounts = neighborCounts == null ? new int[newCapacity] : Arrays.copyOf(neighborCounts, newCapacity);
+        labels = labels == null ? new int[newCapacity] : Arrays.copyOf(labels, newCapacity);
+        capacity = newCapacity;
+    }
+}
@@ -0,0 +1,96 @@
+package com.hotdog.service;
+
+import com.hotdog.dto.HotEventResponseDTO;
+import com.hotdog.model.SystemConfig;
+import com.hotdog.repository.SystemConfigRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 增量聚类引擎（hotdog.clustering.engine=incremental）
+ * 每个系统在内存中保留一份 IncrementalDbscan 状态，每次只加载新向量化的文章、过期滑出窗口的文章，
+ * 刷新代价与变更量成正比；使用非默认参数的请求走一次性的全量聚类，不影响常驻状态
+ */
+@Component
+@ConditionalOnProperty(name = "hotdog.clustering.engine", havingValue = "incremental")
+@Slf4j
+public class IncrementalDbscanClusteringEngine extends AbstractJavaClusteringEngine {
+
+    private final Map<Long, SystemState> states = new ConcurrentHashMap<>();
+
+    public IncrementalDbscanClusteringEngine(SystemConfigRepository systemConfigRepository,
+                                             ArticleWindowLoader articleWindowLoader,
+                                             WindowVectorStore windowVectorStore,
+                                             VectorMath vectorMath,
+                                             ClusteringPools clusteringPools,
+                                             HnswIndexes hnswIndexes) {
+        super(systemConfigRepository, articleWindowLoader, windowVectorStore, vectorMath, clusteringPools,
+            hnswIndexes);
+    }
+
+    @Override
+    public List<HotEventResponseDTO> cluster(Long systemId, Integer hours, Float eps, Integer minSamples) {
+        SystemConfig config = loadConfig(systemId);
+
+        int actualHours = hours != null ? hours : config.getDefaultHours();
+        float actualEps = eps != null ? eps : config.getDefaultEps();
+        int actualMinSamples = minSamples != null ? minSamples : config.getDefaultMinSamples();
+
+        boolean defaults = actualHours == config.getDefaultHours()
+            && actualEps == config.getDefaultEps()
+            && actualMinSamples == config.getDefaultMinSamples();
+        if (!defaults) {
+            return clusterFully(systemId, config, actualHours, actualEps, actualMinSamples);
+        }
+
+        SystemState state = states.compute(systemId, (id, existing) ->
+            existing != null && existing.matches(actualHours, actualEps, actualMinSamples)
+                ? existing
+                : new SystemState(actualHours, new IncrementalDbscan(ArticleWindowLoader.EMBEDDING_DIM,
+                    actualEps, actualMinSamples, vectorMath)));
+
+        synchronized (state) {
+            long start = System.currentTimeMillis();
+            windowVectorStore.refresh(systemId, actualHours, maxLimit(config));
+
+            // 与窗口同步：新增文章的向量直接从堆外窗口读取，已有文章刷新权重；首次构建在系统的线程池中并行
+            int[] changes = clusteringPools.withPool(systemId, config.getClusteringParallelism(), pool ->
+                windowVectorStore.read(systemId, actualHours, window -> state.dbscan.apply(window, pool)));
+
+            if (state.dbscan.size() < actualMinSamples) {
+                return new ArrayList<>();
+            }
+            int[] labels = new int[state.dbscan.size()];
+            ArticleWindow window = state.dbscan.exportWindow(labels);
+            List<HotEventResponseDTO> events = assemble(new ClusteringResult(window, labels));
+
+            log.debug("增量聚类完成: systemId={}, window={}, added={}, removed={}, relabeled={}, clusters={}, {}ms",
+                systemId, window.size(), changes[0], changes[1], changes[2], events.size(),
+                System.currentTimeMillis() - start);
+            return events;
+        }
+    }
+
+    /**
+     * 系统的常驻聚类状态（参数变化时重建）
+     */
+    private static class SystemState {
+        private final int hours;
+        private final IncrementalDbscan dbscan;
+
+        SystemState(int hours, IncrementalDbscan dbscan) {
+            this.hours = hours;
+            this.dbscan = dbscan;
+        }
+
+        boolean matches(int hours, float eps, int minSamples) {
+            return this.hours == hours && dbscan.getEps() == eps && dbscan.getMinSamples() == minSamples;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.hotdog.service;
+
+import com.hotdog.dto.HotEventResponseDTO;
+import com.hotdog.model.SystemConfig;
+import com.hotdog.repository.SystemConfigRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 应用内聚类引擎（Java DBSCAN）
+ * 将聚类的 CPU 开销从数据库移到可水平扩展的应用节点，输出与 hotd_event_clusters_by_system 一致
+ */
+@Component
+@ConditionalOnProperty(name = "hotdog.clustering.engine", havingValue = "java", matchIfMissing = true)
+public class JavaDbscanClusteringEngine extends AbstractJavaClusteringEngine {
+
+    public JavaDbscanClusteringEngine(SystemConfigRepository systemConfigRepository,
+                                      ArticleWindowLoader articleWindowLoader,
+                                      WindowVectorStore windowVectorStore,
+                                      VectorMath vectorMath,
+                                      ClusteringPools clusteringPools,
+                                      HnswIndexes hnswIndexes) {
+        super(systemConfigRepository, articleWindowLoader, windowVectorStore, vectorMath, clusteringPools,
+            hnswIndexes);
+    }
+
+    @Override
+    public List<HotEventResponseDTO> cluster(Long systemId, Integer hours, Float eps, Integer minSamples) {
+        SystemConfig config = loadConfig(systemId);
+        return clusterFully(systemId, config,
+            hours != null ? hours : config.getDefaultHours(),
+            eps != null ? eps : config.getDefaultEps(),
+            minSamples != null ? minSamples : config.getDefaultMinSamples());
+    }
+}
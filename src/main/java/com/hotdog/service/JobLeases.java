@@ -0,0 +1,292 @@
+package com.hotdog.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 多节点下定时任务的归属（基于 PostgreSQL 会话级 advisory lock）
+ * 每个节点用一个专用连接持有锁：节点槽位锁 (NODE_KEY, slot) 表示节点存活，
+ * 系统租约为 bigint 键 任务类型前缀 | system_id 的两把锁（快照刷新、向量化各一把，同一节点一起持有），
+ * 持有租约的节点才调度该系统的任务。节点退出或连接断开时数据库自动释放锁，其他节点在下一轮调度时接管；
+ * 每个节点最多持有 ceil(活跃系统数 / 存活节点数) 个系统，超出时释放空闲的系统，刷新负载随副本数水平扩展。
+ *
+ * 租约没有 fencing：节点失去租约（连接断开、超出份额时释放）时，已经在运行的任务不会被中断，
+ * 会继续跑完并写入结果，与接管节点的任务可能短暂重叠。快照刷新按版本写入、向量化只处理未完成的文章，
+ * 重叠只会浪费一次计算，不会写坏数据；新增依赖租约互斥的任务时需要自行保证幂等。
+ *
+ * rebalance 只由调度线程调用；getStats 可能在 HTTP 线程上调用，读取的状态使用并发集合和 volatile 字段
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobLeases {
+
+    /**
+     * 节点槽位锁的第一个键（'hd' 前缀，避免与其他应用冲突；(0x68640003, 0) 由 hotd_maintain_article_partitions 使用）
+     */
+    static final int NODE_KEY = 0x68640000;
+
+    /**
+     * 系统租约的 bigint 键前缀：高 16 位为 'hd'，其后 4 位为任务类型，低 44 位为 system_id
+     */
+    static final long CLUSTER_LEASE = 0x6864L << 48 | 1L << 44;
+    static final long EMBED_LEASE = 0x6864L << 48 | 2L << 44;
+    static final long MAX_SYSTEM_ID = (1L << 44) - 1;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    @Value("${hotdog.scheduler.lease.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotdog.scheduler.lease.max-nodes:64}")
+    private int maxNodes;
+
+    private Connection connection;
+    private volatile int slot = -1;
+    private volatile int nodes = 1;
+    private volatile int share;
+    private final Set<Long> owned = new ConcurrentSkipListSet<>();
+
+    /**
+     * 按当前存活节点数重新分配租约，返回本节点负责的系统
+     *
+     * @param active 活跃系统
+     * @param busy   本节点正在运行任务的系统（超出份额时不释放，任务结束后再释放）
+     */
+    public Set<Long> rebalance(Collection<Long> active, Set<Long> busy) {
+        if (!enabled) {
+            return new HashSet<>(active);
+        }
+        try {
+            ensureConnected();
+
+            // 已停用的系统释放租约
+            for (Long systemId : new ArrayList<>(owned)) {
+                if (!active.contains(systemId)) {
+                    release(systemId);
+                }
+            }
+
+            nodes = Math.max(1, countNodes());
+            share = (active.size() + nodes - 1) / nodes;
+
+            if (owned.size() > share) {
+                // 新节点加入：释放超出份额的空闲系统，由其他节点接管
+                List<Long> releasable = new ArrayList<>(owned);
+                releasable.removeAll(busy);
+                releasable.sort(preference().reversed());
+                for (Long systemId : releasable) {
+                    if (owned.size() <= share) {
+                        break;
+                    }
+                    release(systemId);
+                }
+            } else if (owned.size() < share) {
+                // 按本节点的偏好顺序尝试未被持有的系统，不同节点优先尝试不同的系统，减少争抢
+                Set<Long> held = heldByAnyNode();
+                List<Long> candidates = new ArrayList<>(active);
+                candidates.removeAll(held);
+                candidates.sort(preference());
+                for (Long systemId : candidates) {
+                    if (owned.size() >= share) {
+                        break;
+                    }
+                    acquire(systemId);
+                }
+            }
+            return new HashSet<>(owned);
+        } catch (SQLException e) {
+            log.warn("任务租约连接异常，放弃本节点持有的全部租约: {}", e.getMessage());
+            disconnect();
+            return Set.of();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("nodeSlot", slot);
+        stats.put("nodes", nodes);
+        stats.put("share", share);
+        stats.put("owned", new ArrayList<>(owned));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        disconnect();
+    }
+
+    private void ensureConnected() throws SQLException {
+        if (connection != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+                return;
+            } catch (SQLException e) {
+                log.warn("任务租约连接已断开，重新连接: {}", e.getMessage());
+                disconnect();
+            }
+        }
+        connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+            dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        connection.setAutoCommit(true);
+        for (int i = 0; i < maxNodes; i++) {
+            if (tryLock(NODE_KEY, i)) {
+                slot = i;
+                log.info("任务租约连接已建立: nodeSlot={}", slot);
+                return;
+            }
+        }
+        disconnect();
+        throw new SQLException("节点槽位已满（hotdog.scheduler.lease.max-nodes=" + maxNodes + "）");
+    }
+
+    /**
+     * 同时取得系统的快照刷新和向量化两把锁，只取得一把时释放
+     */
+    private void acquire(Long systemId) throws SQLException {
+        if (systemId < 0 || systemId > MAX_SYSTEM_ID) {
+            log.error("系统ID超出任务租约键的范围，无法分配到任何节点: systemId={}", systemId);
+            return;
+        }
+        if (!tryLock(CLUSTER_LEASE | systemId)) {
+            return;
+        }
+        if (!tryLock(EMBED_LEASE | systemId)) {
+            unlock(CLUSTER_LEASE | systemId);
+            return;
+        }
+        owned.add(systemId);
+        log.info("取得系统任务租约: systemId={}, nodeSlot={}", systemId, slot);
+    }
+
+    private void release(Long systemId) throws SQLException {
+        unlock(CLUSTER_LEASE | systemId);
+        unlock(EMBED_LEASE | systemId);
+        owned.remove(systemId);
+        log.info("释放系统任务租约: systemId={}, nodeSlot={}", systemId, slot);
+    }
+
+    private boolean tryLock(int key1, int key2) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+            ps.setInt(1, key1);
+            ps.setInt(2, key2);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean tryLock(long key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(long key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, key);
+            ps.executeQuery().close();
+        }
+    }
+
+    /**
+     * 存活节点数（持有节点槽位锁的会话数，双 int 键在 pg_locks 中 objsubid = 2）
+     */
+    private int countNodes() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("""
+                SELECT count(*)
+                FROM pg_locks
+                WHERE locktype = 'advisory'
+                  AND database = (SELECT oid FROM pg_database WHERE datname = current_database())
+                  AND classid = ?::oid
+                  AND objsubid = 2
+                  AND granted
+                """)) {
+            ps.setLong(1, NODE_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * 已被任意节点持有的系统（bigint 键在 pg_locks 中 objsubid = 1，classid 为高 32 位、objid 为低 32 位）
+     */
+    private Set<Long> heldByAnyNode() throws SQLException {
+        Set<Long> held = new HashSet<>();
+        try (PreparedStatement ps = connection.prepareStatement("""
+                SELECT k - ? AS system_id
+                FROM (
+                    SELECT (classid::text::bigint << 32) | objid::text::bigint AS k
+                    FROM pg_locks
+                    WHERE locktype = 'advisory'
+                      AND database = (SELECT oid FROM pg_database WHERE datname = current_database())
+                      AND objsubid = 1
+                      AND granted
+                ) l
+                WHERE k BETWEEN ? AND ?
+                """)) {
+            ps.setLong(1, CLUSTER_LEASE);
+            ps.setLong(2, CLUSTER_LEASE);
+            ps.setLong(3, CLUSTER_LEASE | MAX_SYSTEM_ID);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    held.add(rs.getLong(1));
+                }
+            }
+        }
+        return held;
+    }
+
+    /**
+     * 本节点对系统的偏好顺序（按槽位和系统ID散列），不同节点的顺序不同
+     */
+    private Comparator<Long> preference() {
+        return Comparator.comparingLong(systemId -> mix(systemId * 31 + slot));
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private void disconnect() {
+        owned.clear();
+        slot = -1;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("关闭任务租约连接失败: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+}
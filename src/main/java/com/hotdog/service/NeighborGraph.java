@@ -0,0 +1,192 @@
+package com.hotdog.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * eps 邻域图（CSR 压缩邻接表）
+ * 第 i 个点的邻居为 columns[rowStart[i], rowStart[i + 1])，包含自身且按下标升序；
+ * 全部存放在基本类型数组中，80k 点的窗口不会产生 80k 个小数组
+ */
+public final class NeighborGraph {
+
+    /**
+     * 分块大小（行、列各 BLOCK 个向量，一块 1024 维向量约 256KB，可留在 L2 缓存中）
+     */
+    private static final int BLOCK = 64;
+
+    /**
+     * 叶子任务最多处理的块数，超过则继续拆分
+     */
+    private static final int TILES_PER_TASK = 16;
+
+    private final int[] rowStart;
+    private final int[] columns;
+
+    private NeighborGraph(int[] rowStart, int[] columns) {
+        this.rowStart = rowStart;
+        this.columns = columns;
+    }
+
+    public int size() {
+        return rowStart.length - 1;
+    }
+
+    public int degree(int i) {
+        return rowStart[i + 1] - rowStart[i];
+    }
+
+    public int neighbor(int i, int k) {
+        return columns[rowStart[i] + k];
+    }
+
+    public int edgeCount() {
+        return columns.length;
+    }
+
+    /**
+     * 在 pool 中并行构建窗口的 eps 邻域图
+     * 点积矩阵按 BLOCK x BLOCK 分块，只计算上三角的块；块列表递归二分后由 ForkJoin 工作窃取均衡负载
+     */
+    public static NeighborGraph build(ArticleWindow window, float eps, VectorMath math, ForkJoinPool pool) {
+        int n = window.size();
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        int[] tileRows = new int[blocks * (blocks + 1) / 2];
+        int[] tileCols = new int[tileRows.length];
+        int t = 0;
+        for (int r = 0; r < blocks; r++) {
+            for (int c = r; c < blocks; c++) {
+                tileRows[t] = r;
+                tileCols[t++] = c;
+            }
+        }
+
+        TileTask root = new TileTask(window, 1.0f - eps, math, tileRows, tileCols, 0, tileRows.length);
+        List<EdgeBuffer> buffers = tileRows.length == 0 ? List.of() : pool.invoke(root);
+
+        return fromEdges(n, buffers);
+    }
+
+    /**
+     * 由边集合组装 CSR：每条边 (i, j) 同时计入 i、j 的邻居，再加上自身；重复的边只保留一条
+     */
+    static NeighborGraph fromEdges(int n, List<EdgeBuffer> buffers) {
+        int[] rowStart = new int[n + 1];
+        for (EdgeBuffer buffer : buffers) {
+            for (int e = 0; e < buffer.size; e += 2) {
+                rowStart[buffer.data[e] + 1]++;
+                rowStart[buffer.data[e + 1] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            rowStart[i + 1] += rowStart[i] + 1;
+        }
+        int[] columns = new int[rowStart[n]];
+        int[] fill = Arrays.copyOf(rowStart, n);
+        for (int i = 0; i < n; i++) {
+            columns[fill[i]++] = i;
+        }
+        for (EdgeBuffer buffer : buffers) {
+            for (int e = 0; e < buffer.size; e += 2) {
+                int i = buffer.data[e];
+                int j = buffer.data[e + 1];
+                columns[fill[i]++] = j;
+                columns[fill[j]++] = i;
+            }
+        }
+        // 并行产生的边顺序不确定，排序后簇扩展顺序（边界点归属）与串行一致
+        int write = 0;
+        int[] compactStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(columns, rowStart[i], rowStart[i + 1]);
+            compactStart[i] = write;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                if (k == rowStart[i] || columns[k] != columns[k - 1]) {
+                    columns[write++] = columns[k];
+                }
+            }
+        }
+        compactStart[n] = write;
+        return new NeighborGraph(compactStart, write == columns.length ? columns : Arrays.copyOf(columns, write));
+    }
+
+    /**
+     * 处理块列表 [from, to) 的任务，返回各叶子收集到的边
+     */
+    private static class TileTask extends RecursiveTask<List<EdgeBuffer>> {
+
+        private final ArticleWindow window;
+        private final float minDot;
+        private final VectorMath math;
+        private final int[] tileRows;
+        private final int[] tileCols;
+        private final int from;
+        private final int to;
+
+        TileTask(ArticleWindow window, float minDot, VectorMath math,
+                 int[] tileRows, int[] tileCols, int from, int to) {
+            this.window = window;
+            this.minDot = minDot;
+            this.math = math;
+            this.tileRows = tileRows;
+            this.tileCols = tileCols;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<EdgeBuffer> compute() {
+            if (to - from > TILES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                TileTask left = new TileTask(window, minDot, math, tileRows, tileCols, from, mid);
+                TileTask right = new TileTask(window, minDot, math, tileRows, tileCols, mid, to);
+                left.fork();
+                List<EdgeBuffer> result = new ArrayList<>(right.compute());
+                result.addAll(left.join());
+                return result;
+            }
+
+            int n = window.size();
+            ByteBuffer vectors = window.getVectors();
+            int[] offsets = window.getVectorOffsets();
+            float[] block = new float[BLOCK * BLOCK];
+            EdgeBuffer edges = new EdgeBuffer();
+            for (int t = from; t < to; t++) {
+                int rowFrom = tileRows[t] * BLOCK;
+                int rowTo = Math.min(rowFrom + BLOCK, n);
+                int colFrom = tileCols[t] * BLOCK;
+                int colTo = Math.min(colFrom + BLOCK, n);
+                int cols = colTo - colFrom;
+                math.dotBlock(vectors, offsets, rowFrom, rowTo, colFrom, colTo, window.getDim(), block);
+                for (int i = rowFrom; i < rowTo; i++) {
+                    for (int j = Math.max(colFrom, i + 1); j < colTo; j++) {
+                        if (block[(i - rowFrom) * cols + (j - colFrom)] >= minDot) {
+                            edges.add(i, j);
+                        }
+                    }
+                }
+            }
+            return List.of(edges);
+        }
+    }
+
+    /**
+     * 边缓冲区，(i, j) 成对存放
+     */
+    static class EdgeBuffer {
+        int[] data = new int[256];
+        int size;
+
+        void add(int i, int j) {
+            if (size + 2 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = i;
+            data[size++] = j;
+        }
+    }
+}
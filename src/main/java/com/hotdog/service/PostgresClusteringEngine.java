@@ -0,0 +1,56 @@
+package com.hotdog.service;
+
+import com.hotdog.dto.HotEventResponseDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 数据库聚类引擎（调用 hotd_event_clusters_by_system，在 PostgreSQL 内执行 sklearn DBSCAN）
+ */
+@Component
+@ConditionalOnProperty(name = "hotdog.clustering.engine", havingValue = "postgres")
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresClusteringEngine implements ClusteringEngine {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<HotEventResponseDTO> cluster(Long systemId, Integer hours, Float eps, Integer minSamples) {
+        String sql = """
+            SELECT
+                row_number() OVER (ORDER BY hot_score DESC) AS rank_no,
+                cluster_id, title, article_count,
+                total_weight, hot_score, sample_titles, article_ids
+            FROM hotd_event_clusters_by_system(?, ?, ?, ?)
+        """;
+
+        return jdbcTemplate.query(sql,
+            new Object[]{systemId, hours, eps, minSamples},
+            (rs, rowNum) -> {
+                HotEventResponseDTO dto = new HotEventResponseDTO();
+                dto.setRank(rs.getInt("rank_no"));
+                dto.setClusterId(rs.getLong("cluster_id"));
+                dto.setTitle(rs.getString("title"));
+                dto.setArticleCount(rs.getLong("article_count"));
+                dto.setTotalWeight(rs.getBigDecimal("total_weight"));
+                dto.setHotScore(rs.getBigDecimal("hot_score"));
+                dto.setSampleTitles(rs.getString("sample_titles"));
+
+                Array articleIdsArray = rs.getArray("article_ids");
+                if (articleIdsArray != null) {
+                    Long[] articleIds = (Long[]) articleIdsArray.getArray();
+                    dto.setArticleIds(Arrays.asList(articleIds));
+                }
+
+                return dto;
+            });
+    }
+}
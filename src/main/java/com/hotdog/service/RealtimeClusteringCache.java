@@ -0,0 +1,169 @@
+package com.hotdog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hotdog.dto.HotEventResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 实时聚类结果缓存
+ * 相同 (systemId, hours, eps, minSamples) 的并发请求共享同一次聚类计算；结果缓存到该系统的写入/向量化水位线前进为止。
+ * 水位线取 hotd_embedding_backlog 中该系统的计数行（文章写入和向量化完成时由触发器更新），每次请求只读这一行；
+ * 其他系统共享过来的文章、删除、权重变化和窗口滑动不改变水位线，由 max-age-seconds 兜底。
+ * 每次计算的结果带一个令牌（写入每个事件的 resultToken），簇成员按令牌另行保留 token-ttl-seconds，
+ * 下钻查询簇内文章时按令牌取回同一次聚类的成员，不再重新聚类（DBSCAN 的簇编号在两次计算之间不稳定）
+ */
+@Component
+@Slf4j
+public class RealtimeClusteringCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final Cache<Key, Entry> results;
+    private final Cache<String, Entry> tokens;
+    private final Map<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong computed = new AtomicLong();
+
+    public RealtimeClusteringCache(JdbcTemplate jdbcTemplate,
+                                   @Value("${hotdog.clustering.realtime-cache.enabled:true}") boolean enabled,
+                                   @Value("${hotdog.clustering.realtime-cache.maximum-size:1000}") long maximumSize,
+                                   @Value("${hotdog.clustering.realtime-cache.max-age-seconds:300}") long maxAgeSeconds,
+                                   @Value("${hotdog.clustering.realtime-cache.token-ttl-seconds:1800}") long tokenTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxAgeMillis = maxAgeSeconds * 1000;
+        this.results = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.tokens = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofSeconds(tokenTtlSeconds))
+            .build();
+    }
+
+    /**
+     * 取缓存的聚类结果；水位线未变且未超过最长缓存时间时直接返回，否则合并到进行中的计算或发起一次新计算
+     */
+    public List<HotEventResponseDTO> get(Long systemId, Integer hours, Float eps, Integer minSamples,
+                                         Supplier<List<HotEventResponseDTO>> compute) {
+        if (!enabled) {
+            return register(systemId, compute.get()).events;
+        }
+        requests.incrementAndGet();
+        Key key = new Key(systemId, hours, eps, minSamples);
+        String watermark = readWatermark(systemId);
+        Entry cached = results.getIfPresent(key);
+        if (cached != null && cached.watermark.equals(watermark)
+                && System.currentTimeMillis() - cached.computedAt < maxAgeMillis) {
+            hits.incrementAndGet();
+            return cached.events;
+        }
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            try {
+                return running.join().events;
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            // 水位线在计算前读取：计算期间写入的文章会让下一次请求重新计算
+            Entry entry = register(systemId, compute.get()).withWatermark(watermark);
+            computed.incrementAndGet();
+            results.put(key, entry);
+            mine.complete(entry);
+            return entry.events;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 按令牌取回一次聚类结果中某个簇的文章ID；令牌不存在、已过期或不属于该系统时返回 null
+     */
+    public List<Long> resolveMembers(String token, Long systemId, Long clusterId) {
+        Entry entry = tokens.getIfPresent(token);
+        if (entry == null || !entry.systemId.equals(systemId)) {
+            return null;
+        }
+        for (HotEventResponseDTO event : entry.events) {
+            if (clusterId.equals(event.getClusterId())) {
+                return event.getArticleIds() != null ? event.getArticleIds() : List.of();
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * 为新计算的结果分配令牌并保留簇成员
+     */
+    private Entry register(Long systemId, List<HotEventResponseDTO> events) {
+        String token = UUID.randomUUID().toString();
+        events.forEach(event -> event.setResultToken(token));
+        Entry entry = new Entry(systemId, "", System.currentTimeMillis(), List.copyOf(events));
+        tokens.put(token, entry);
+        return entry;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long total = requests.get();
+        stats.put("enabled", enabled);
+        stats.put("requests", total);
+        stats.put("hits", hits.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("computed", computed.get());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) (hits.get() + coalesced.get()) / total);
+        stats.put("inFlight", inFlight.size());
+        stats.put("cachedResults", results.estimatedSize());
+        stats.put("liveTokens", tokens.estimatedSize());
+        return stats;
+    }
+
+    /**
+     * 系统的写入/向量化水位线：积压计数行的更新时间和计数（写入待向量化文章、向量化完成都会改变）
+     */
+    private String readWatermark(Long systemId) {
+        List<String> rows = jdbcTemplate.queryForList("""
+            SELECT update_time::text || '/' || pending || '/' || failed
+            FROM hotd_embedding_backlog
+            WHERE system_id = ?
+            """, String.class, systemId);
+        return rows.isEmpty() ? "" : Objects.toString(rows.get(0), "");
+    }
+
+    private record Key(Long systemId, Integer hours, Float eps, Integer minSamples) {
+    }
+
+    private record Entry(Long systemId, String watermark, long computedAt, List<HotEventResponseDTO> events) {
+
+        Entry withWatermark(String watermark) {
+            return new Entry(systemId, watermark, computedAt, events);
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.hotdog.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 应用内刷新调度器（代替 pg_cron 的 hotd-cluster-* / hotd-embed-* 任务）
+ * 按 hotd_system_configs 的 clustering_cron、embedding_cron 调度每个系统的快照刷新和向量化：
+ * 同一系统同一时间只运行一个任务（同一任务上次未结束时跳过本次，另一任务在运行时顺延到其结束后），
+ * 全局并发不超过 max-concurrency，触发时间加随机抖动避免大量租户在同一分钟同时启动；
+ * 每次运行的耗时和结果写入 hotd_job_runs。配置了 refresh_min_new_articles / refresh_min_growth_pct 的系统按变化量刷新快照：
+ * 每轮调度随系统配置一起读取 hotd_ingest_counters 的累计向量化数，与上次刷新时的读数之差即新增文章数，
+ * 在最小、最大间隔之间达到阈值时刷新，判断本身不额外查询。多节点部署时只调度本节点持有租约（JobLeases）的系统，
+ * 同一系统的任务只在一个节点上运行，节点宕机后由其他节点接管
+ */
+@Component
+@Slf4j
+public class RefreshScheduler {
+
+    /**
+     * 任务类型
+     */
+    public enum JobType {
+        CLUSTER, EMBED
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HotEventService hotEventService;
+    private final EmbeddingService embeddingService;
+    private final JobLeases jobLeases;
+    private final ArticleWindowLoader articleWindowLoader;
+
+    @Value("${hotdog.scheduler.enabled:false}")
+    private boolean enabled;
+
+    @Value("${hotdog.scheduler.max-concurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${hotdog.scheduler.jitter-seconds:30}")
+    private int jitterSeconds;
+
+    /**
+     * cron 表达式的时区，默认与 pg_cron 一致（GMT）
+     */
+    @Value("${hotdog.scheduler.time-zone:UTC}")
+    private String timeZone;
+
+    @Value("${hotdog.scheduler.run-retention-days:7}")
+    private int runRetentionDays;
+
+    private final Map<Long, SystemJobs> systems = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private ZoneId zone;
+
+    public RefreshScheduler(JdbcTemplate jdbcTemplate, HotEventService hotEventService,
+                            EmbeddingService embeddingService, JobLeases jobLeases,
+                            ArticleWindowLoader articleWindowLoader) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hotEventService = hotEventService;
+        this.embeddingService = embeddingService;
+        this.jobLeases = jobLeases;
+        this.articleWindowLoader = articleWindowLoader;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        zone = ZoneId.of(timeZone);
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "hotd-refresh-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        unschedulePgCronJobs();
+        log.info("应用内刷新调度器已启动: maxConcurrency={}, jitterSeconds={}, timeZone={}",
+            maxConcurrency, jitterSeconds, timeZone);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 读取系统配置并提交到期的任务
+     */
+    @Scheduled(fixedDelayString = "${hotdog.scheduler.tick-ms:5000}", initialDelay = 5000)
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            Set<Long> active = new HashSet<>();
+            jdbcTemplate.query("""
+                SELECT s.id, s.system_code, sc.clustering_cron, sc.embedding_cron, sc.default_hours,
+                       sc.refresh_min_new_articles, sc.refresh_min_growth_pct,
+                       sc.refresh_min_interval_seconds, sc.refresh_max_interval_seconds,
+                       COALESCE(ic.embedded, 0) + COALESCE(shared.embedded, 0) AS embedded,
+                       c.snapshot_time
+                FROM hotd_systems s
+                JOIN hotd_system_configs sc ON sc.system_id = s.id
+                LEFT JOIN hotd_ingest_counters ic ON ic.system_id = s.id
+                LEFT JOIN hotd_ingest_counters shared ON shared.system_id = -1
+                LEFT JOIN hotd_event_snapshot_current c ON c.system_id = s.id
+                WHERE s.is_active = true
+                """, rs -> {
+                Long systemId = rs.getLong("id");
+                active.add(systemId);
+                SystemJobs jobs = systems.computeIfAbsent(systemId, SystemJobs::new);
+                OffsetDateTime snapshotTime = rs.getObject("snapshot_time", OffsetDateTime.class);
+                synchronized (jobs) {
+                    jobs.systemCode = rs.getString("system_code");
+                    jobs.hours = rs.getObject("default_hours", Integer.class);
+                    jobs.minNewArticles = rs.getObject("refresh_min_new_articles", Integer.class);
+                    jobs.minGrowthPct = rs.getObject("refresh_min_growth_pct", Double.class);
+                    jobs.minIntervalSeconds = rs.getObject("refresh_min_interval_seconds", Integer.class);
+                    jobs.maxIntervalSeconds = rs.getObject("refresh_max_interval_seconds", Integer.class);
+                    jobs.updateCounter(rs.getLong("embedded"), snapshotTime != null ? snapshotTime.toInstant() : null);
+                    jobs.job(JobType.CLUSTER).reschedule(jobs.isAdaptive() ? null : rs.getString("clustering_cron"), now);
+                    jobs.job(JobType.EMBED).reschedule(rs.getString("embedding_cron"), now);
+                }
+            });
+            // 停用或删除的系统不再调度（正在运行的任务自然结束）
+            systems.keySet().retainAll(active);
+
+            Set<Long> busy = new HashSet<>();
+            for (SystemJobs jobs : systems.values()) {
+                synchronized (jobs) {
+                    if (jobs.running != null) {
+                        busy.add(jobs.systemId);
+                    }
+                }
+            }
+            Set<Long> owned = jobLeases.rebalance(active, busy);
+
+            for (SystemJobs jobs : systems.values()) {
+                boolean leased = owned.contains(jobs.systemId);
+                for (JobState job : jobs.jobs.values()) {
+                    if (leased) {
+                        dispatchIfDue(jobs, job, now);
+                    } else {
+                        skipNotLeased(jobs, job, now);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("刷新调度失败", e);
+        }
+    }
+
+    /**
+     * 提交到期任务：同一任务仍在运行（或排队）时跳过本次触发；同系统另一任务在运行时顺延，下一轮再判断。
+     * 按变化量刷新的快照任务在运行中时不计跳过，结束后按新的基线重新判断
+     */
+    private void dispatchIfDue(SystemJobs jobs, JobState job, Instant now) {
+        synchronized (jobs) {
+            if (!jobs.isDue(job, now)) {
+                return;
+            }
+            if (jobs.running == job.type && job.type == JobType.CLUSTER && jobs.isAdaptive()) {
+                return;
+            }
+            if (jobs.running == job.type) {
+                job.skipped++;
+                job.advance(now);
+                log.warn("上次任务尚未结束，跳过本次触发: systemId={}, job={}", jobs.systemId, job.type);
+                return;
+            }
+            if (jobs.running != null) {
+                job.deferred++;
+                return;
+            }
+            jobs.running = job.type;
+            job.advance(now);
+        }
+        executor.execute(() -> run(jobs, job));
+    }
+
+    /**
+     * 其他节点持有的系统只推进触发时间，接管时从下一个 cron 时间开始，不补跑其他节点已执行的触发
+     */
+    private void skipNotLeased(SystemJobs jobs, JobState job, Instant now) {
+        synchronized (jobs) {
+            if (job.isDue(now)) {
+                job.advance(now);
+            }
+            if (job.type == JobType.CLUSTER) {
+                // 快照由其他节点刷新，接管时按当前快照时间和计数重新建立基线
+                jobs.baseline = null;
+                jobs.lastRefresh = null;
+            }
+        }
+    }
+
+    private void run(SystemJobs jobs, JobState job) {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        String error = null;
+        long counter;
+        boolean countWindow;
+        int hours;
+        synchronized (jobs) {
+            counter = jobs.embedded;
+            countWindow = jobs.minGrowthPct != null && jobs.minGrowthPct > 0;
+            hours = jobs.windowHours();
+        }
+        Long windowSize = null;
+        try {
+            switch (job.type) {
+                case CLUSTER -> {
+                    hotEventService.refreshHotEventSnapshot(jobs.systemId);
+                    if (countWindow) {
+                        windowSize = articleWindowLoader.countWindow(jobs.systemId, hours);
+                    }
+                }
+                case EMBED -> embeddingService.embedBatchForSystem(jobs.systemId);
+            }
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+            log.error("定时任务失败: systemId={}, job={}", jobs.systemId, job.type, e);
+        } finally {
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            synchronized (jobs) {
+                job.record(startedAt, durationMs, error);
+                if (job.type == JobType.CLUSTER) {
+                    jobs.refreshed(startedAt, counter, windowSize, error == null);
+                }
+                jobs.running = null;
+            }
+            recordRun(jobs.systemId, job.type, startedAt, durationMs, error);
+        }
+    }
+
+    private void recordRun(Long systemId, JobType type, Instant startedAt, long durationMs, String error) {
+        try {
+            jdbcTemplate.update("""
+                INSERT INTO hotd_job_runs (system_id, job_type, start_time, duration_ms, success, error)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, systemId, type.name(), Timestamp.from(startedAt), durationMs, error == null, error);
+        } catch (Exception e) {
+            log.warn("记录任务运行失败: systemId={}, job={}, error={}", systemId, type, e.getMessage());
+        }
+    }
+
+    /**
+     * 清理超过保留天数的运行记录
+     */
+    @Scheduled(fixedDelayString = "${hotdog.scheduler.run-gc-interval-ms:3600000}", initialDelay = 60000)
+    public void cleanupRuns() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(
+                "DELETE FROM hotd_job_runs WHERE start_time < now() - make_interval(days => ?)", runRetentionDays);
+            if (deleted > 0) {
+                log.info("清理过期任务运行记录: deleted={}", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理任务运行记录失败", e);
+        }
+    }
+
+    /**
+     * 系统最近的运行记录
+     */
+    public List<Map<String, Object>> getRecentRuns(Long systemId, int limit) {
+        return jdbcTemplate.queryForList("""
+            SELECT id, system_id AS "systemId", job_type AS "jobType", start_time AS "startTime",
+                   duration_ms AS "durationMs", success, error
+            FROM hotd_job_runs
+            WHERE system_id = ?
+            ORDER BY start_time DESC
+            LIMIT ?
+            """, systemId, limit);
+    }
+
+    /**
+     * 调度状态：每个系统每个任务的 cron、下次触发时间、运行/失败/跳过次数和耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("active", executor != null ? executor.getActiveCount() : 0);
+        stats.put("queued", executor != null ? executor.getQueue().size() : 0);
+        stats.put("leases", jobLeases.getStats());
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (SystemJobs system : systems.values()) {
+            synchronized (system) {
+                for (JobState job : system.jobs.values()) {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("systemId", system.systemId);
+                    item.put("systemCode", system.systemCode);
+                    item.put("job", job.type);
+                    item.put("cron", job.cron);
+                    item.put("nextFire", job.nextFire);
+                    item.put("running", system.running == job.type);
+                    item.put("runs", job.runs);
+                    item.put("failures", job.failures);
+                    item.put("skipped", job.skipped);
+                    item.put("deferred", job.deferred);
+                    item.put("lastStart", job.lastStart);
+                    item.put("lastDurationMs", job.lastDurationMs);
+                    item.put("avgDurationMs", job.runs == 0 ? 0 : job.totalDurationMs / job.runs);
+                    item.put("maxDurationMs", job.maxDurationMs);
+                    item.put("lastError", job.lastError);
+                    if (job.type == JobType.CLUSTER && system.isAdaptive()) {
+                        item.put("adaptive", true);
+                        item.put("newArticles", system.newArticles());
+                        item.put("windowSize", system.windowSize);
+                        item.put("lastRefresh", system.lastRefresh);
+                    }
+                    jobs.add(item);
+                }
+            }
+        }
+        stats.put("jobs", jobs);
+        return stats;
+    }
+
+    /**
+     * 删除 pg_cron 中的刷新和向量化任务，避免与应用内调度重复执行
+     */
+    private void unschedulePgCronJobs() {
+        try {
+            jdbcTemplate.query("""
+                SELECT cron.unschedule(jobid)
+                FROM cron.job
+                WHERE jobname LIKE 'hotd-cluster-%' OR jobname LIKE 'hotd-embed-%'
+                """, rs -> {
+                // 返回是否删除成功，忽略结果集
+            });
+        } catch (Exception e) {
+            log.warn("删除 pg_cron 任务失败（pg_cron 可能未安装）: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * pg_cron 使用 5 段 cron（分 时 日 月 周），Spring 的 CronExpression 需要秒字段
+     */
+    static CronExpression parseCron(String expression) {
+        String trimmed = expression.trim();
+        if (!trimmed.startsWith("@") && trimmed.split("\\s+").length == 5) {
+            trimmed = "0 " + trimmed;
+        }
+        return CronExpression.parse(trimmed);
+    }
+
+    /**
+     * 单个系统的任务（同一系统的任务互斥，running 为正在运行或排队中的任务）；
+     * 本系统任务状态的读写都在该对象的锁内
+     */
+    private class SystemJobs {
+        final Long systemId;
+        volatile String systemCode;
+        JobType running;
+        final Map<JobType, JobState> jobs = new EnumMap<>(JobType.class);
+
+        // 按变化量刷新：系统配置、累计向量化数的最新读数、上次刷新时的读数（基线）和窗口文章数
+        Integer hours;
+        Integer minNewArticles;
+        Double minGrowthPct;
+        Integer minIntervalSeconds;
+        Integer maxIntervalSeconds;
+        long embedded;
+        Long baseline;
+        Long windowSize;
+        Instant lastRefresh;
+
+        SystemJobs(Long systemId) {
+            this.systemId = systemId;
+            for (JobType type : JobType.values()) {
+                jobs.put(type, new JobState(type));
+            }
+        }
+
+        JobState job(JobType type) {
+            return jobs.get(type);
+        }
+
+        boolean isAdaptive() {
+            return (minNewArticles != null && minNewArticles > 0) || (minGrowthPct != null && minGrowthPct > 0);
+        }
+
+        int windowHours() {
+            return hours != null ? hours : 24;
+        }
+
+        long newArticles() {
+            return baseline == null ? 0 : embedded - baseline;
+        }
+
+        /**
+         * 更新累计向量化数；首次读到（启动或接管）时以当前读数为基线、当前快照时间为上次刷新时间，
+         * 读数小于基线（计数表被重建）时重新建立基线
+         */
+        void updateCounter(long value, Instant snapshotTime) {
+            embedded = value;
+            if (baseline == null) {
+                baseline = value;
+                lastRefresh = snapshotTime;
+            } else if (value < baseline) {
+                baseline = value;
+            }
+        }
+
+        boolean isDue(JobState job, Instant now) {
+            if (job.type != JobType.CLUSTER || !isAdaptive()) {
+                return job.isDue(now);
+            }
+            if (lastRefresh == null) {
+                return true;
+            }
+            long elapsed = Duration.between(lastRefresh, now).getSeconds();
+            if (elapsed < (minIntervalSeconds != null ? minIntervalSeconds : 60)) {
+                return false;
+            }
+            if (elapsed >= (maxIntervalSeconds != null ? maxIntervalSeconds : 3600)) {
+                return true;
+            }
+            long added = newArticles();
+            if (minNewArticles != null && minNewArticles > 0 && added >= minNewArticles) {
+                return true;
+            }
+            // 窗口文章数未知（启动后尚未刷新）时有新增即刷新一次，刷新后得到窗口文章数
+            return minGrowthPct != null && minGrowthPct > 0 && added > 0
+                && (windowSize == null || added * 100.0 >= minGrowthPct * windowSize);
+        }
+
+        /**
+         * 快照刷新结束：成功时以开始时的读数为新基线（刷新期间新增的文章计入下一次），
+         * 失败时只更新刷新时间，最小间隔过后再重试
+         */
+        void refreshed(Instant startedAt, long counter, Long window, boolean success) {
+            lastRefresh = startedAt;
+            if (success) {
+                baseline = counter;
+                if (window != null) {
+                    windowSize = window;
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个任务的调度状态和运行统计
+     */
+    private class JobState {
+        final JobType type;
+        String cron;
+        CronExpression expression;
+        Instant nextFire;
+        long runs;
+        long failures;
+        long skipped;
+        long deferred;
+        Instant lastStart;
+        long lastDurationMs;
+        long totalDurationMs;
+        long maxDurationMs;
+        String lastError;
+
+        JobState(JobType type) {
+            this.type = type;
+        }
+
+        /**
+         * cron 变化时重新解析并计算下次触发时间
+         */
+        void reschedule(String newCron, Instant now) {
+            if (newCron == null || newCron.isBlank()) {
+                cron = null;
+                expression = null;
+                nextFire = null;
+                return;
+            }
+            if (newCron.equals(cron)) {
+                return;
+            }
+            cron = newCron;
+            try {
+                expression = parseCron(newCron);
+                advance(now);
+            } catch (IllegalArgumentException e) {
+                log.warn("无法解析 cron，任务不调度: job={}, cron={}, error={}", type, newCron, e.getMessage());
+                expression = null;
+                nextFire = null;
+            }
+        }
+
+        boolean isDue(Instant now) {
+            return nextFire != null && !now.isBefore(nextFire);
+        }
+
+        /**
+         * 计算下一次触发时间（cron 时间 + 随机抖动）
+         */
+        void advance(Instant now) {
+            if (expression == null) {
+                nextFire = null;
+                return;
+            }
+            ZonedDateTime next = expression.next(ZonedDateTime.ofInstant(now, zone));
+            long jitterMs = jitterSeconds > 0 ? ThreadLocalRandom.current().nextLong(jitterSeconds * 1000L) : 0;
+            nextFire = next == null ? null : next.toInstant().plusMillis(jitterMs);
+        }
+
+        void record(Instant startedAt, long durationMs, String error) {
+            runs++;
+            if (error != null) {
+                failures++;
+            }
+            lastStart = startedAt;
+            lastDurationMs = durationMs;
+            totalDurationMs += durationMs;
+            maxDurationMs = Math.max(maxDurationMs, durationMs);
+            lastError = error;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.hotdog.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 标量点积内核（jdk.incubator.vector 不可用时的后备实现）
+ * 四路累加打断浮点加法的依赖链，便于 JIT 流水化
+ */
+public class ScalarVectorMath implements VectorMath {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(ByteBuffer data, int a, int b, int dim) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int k = 0;
+        for (; k + 4 <= dim; k += 4) {
+            int off = k * Float.BYTES;
+            s0 += data.getFloat(a + off) * data.getFloat(b + off);
+            s1 += data.getFloat(a + off + 4) * data.getFloat(b + off + 4);
+            s2 += data.getFloat(a + off + 8) * data.getFloat(b + off + 8);
+            s3 += data.getFloat(a + off + 12) * data.getFloat(b + off + 12);
+        }
+        for (; k < dim; k++) {
+            s0 += data.getFloat(a + k * Float.BYTES) * data.getFloat(b + k * Float.BYTES);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float dot(float[] data, int a, int b, int dim) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int k = 0;
+        for (; k + 4 <= dim; k += 4) {
+            s0 += data[a + k] * data[b + k];
+            s1 += data[a + k + 1] * data[b + k + 1];
+            s2 += data[a + k + 2] * data[b + k + 2];
+            s3 += data[a + k + 3] * data[b + k + 3];
+        }
+        for (; k < dim; k++) {
+            s0 += data[a + k] * data[b + k];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
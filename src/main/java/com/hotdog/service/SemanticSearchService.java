@@ -0,0 +1,216 @@
+package com.hotdog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hotdog.config.SystemContext;
+import com.hotdog.dto.SimilarArticleDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 语义相似度检索（pgvector HNSW 索引 hotd_idx_articles_embedding）
+ * 按文章或文本取得查询向量后在系统可见范围内取最近的 k 篇文章；hnsw.ef_search 按请求在事务内设置，
+ * 结果按（系统、向量哈希、k、ef_search）短期缓存，同一篇文章或同一检索文本的重复查询不再访问索引。
+ * 系统可见范围在索引扫描之后过滤，开启 hnsw.iterative_scan（pgvector 0.8+）后索引扫描在过滤掉的行过多时继续向外扩展，
+ * 只能看到少部分文章的系统也能取满 k 篇（最多扫描 max-scan-tuples 个索引元组）
+ */
+@Service
+@Slf4j
+public class SemanticSearchService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmbeddingProvider embeddingProvider;
+    private final EmbeddingCache embeddingCache;
+    private final Cache<String, List<SimilarArticleDTO>> results;
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    @Value("${hotdog.similarity.default-k:10}")
+    private int defaultK;
+
+    @Value("${hotdog.similarity.max-k:100}")
+    private int maxK;
+
+    @Value("${hotdog.similarity.default-ef-search:100}")
+    private int defaultEfSearch;
+
+    @Value("${hotdog.similarity.max-ef-search:1000}")
+    private int maxEfSearch;
+
+    /**
+     * hnsw.iterative_scan：strict_order（结果严格按距离排序）、relaxed_order 或 off（pgvector 0.8 之前的版本）
+     */
+    @Value("${hotdog.similarity.iterative-scan:strict_order}")
+    private String iterativeScan;
+
+    @Value("${hotdog.similarity.max-scan-tuples:20000}")
+    private int maxScanTuples;
+
+    public SemanticSearchService(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 EmbeddingProvider embeddingProvider,
+                                 EmbeddingCache embeddingCache,
+                                 @Value("${hotdog.similarity.cache.maximum-size:10000}") long cacheSize,
+                                 @Value("${hotdog.similarity.cache.ttl-seconds:60}") long cacheTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.embeddingProvider = embeddingProvider;
+        this.embeddingCache = embeddingCache;
+        this.results = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+            .build();
+    }
+
+    /**
+     * 与指定文章语义最相近的文章（不含文章本身）
+     */
+    public List<SimilarArticleDTO> findSimilar(Long articleId, Long systemId, Integer k, Integer efSearch) {
+        Long system = resolveSystemId(systemId);
+        List<String> embeddings = jdbcTemplate.queryForList("""
+            SELECT a.embedding::text
+            FROM hotd_articles a
+            WHERE a.id = ?
+              AND a.is_deleted = false
+            """ + visibility(system), String.class, visibilityArgs(articleId, system));
+        if (embeddings.isEmpty()) {
+            throw new RuntimeException("文章不存在: " + articleId);
+        }
+        if (embeddings.get(0) == null) {
+            throw new RuntimeException("文章尚未向量化: " + articleId);
+        }
+        float[] vector = ArticleWindowLoader.parseVector(embeddings.get(0));
+        return search(vector, articleId, system, k, efSearch);
+    }
+
+    /**
+     * 与一段文本语义最相近的文章；文本向量先查内容哈希缓存，未命中才调用模型
+     */
+    public List<SimilarArticleDTO> searchByText(String text, Long systemId, Integer k, Integer efSearch) {
+        Long system = resolveSystemId(systemId);
+        String hash = jdbcTemplate.queryForObject("SELECT hotd_content_hash(?)", String.class, text);
+        float[] vector = embeddingCache.getAll(Set.of(hash)).get(hash);
+        if (vector == null) {
+            vector = embeddingProvider.embed(List.of(text)).get(0);
+            ArticleWindowLoader.normalize(vector, 0, vector.length);
+            embeddingCache.putAll(Map.of(hash, vector));
+        }
+        return search(vector, null, system, k, efSearch);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long total = queries.get();
+        stats.put("queries", total);
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) cacheHits.get() / total);
+        stats.put("cachedResults", results.estimatedSize());
+        return stats;
+    }
+
+    private List<SimilarArticleDTO> search(float[] vector, Long excludeId, Long systemId, Integer k, Integer efSearch) {
+        int limit = Math.max(1, Math.min(k != null ? k : defaultK, maxK));
+        // ef_search 小于 k 时 HNSW 最多只能返回 ef_search 条
+        int ef = Math.max(limit, Math.min(efSearch != null ? efSearch : defaultEfSearch, maxEfSearch));
+        String key = systemId + ":" + vectorHash(vector) + ":" + excludeId + ":" + limit + ":" + ef;
+
+        queries.incrementAndGet();
+        List<SimilarArticleDTO> cached = results.getIfPresent(key);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+
+        String literal = EmbeddingPipeline.toLiteral(vector);
+        List<SimilarArticleDTO> found = transactionTemplate.execute(status -> {
+            // SET LOCAL 不支持参数，用 set_config(..., true) 只在本事务内生效
+            jdbcTemplate.queryForList("SELECT set_config('hnsw.ef_search', ?, true)", String.class,
+                String.valueOf(ef));
+            if (!"off".equalsIgnoreCase(iterativeScan)) {
+                jdbcTemplate.queryForList(
+                    "SELECT set_config('hnsw.iterative_scan', ?, true), set_config('hnsw.max_scan_tuples', ?, true)",
+                    iterativeScan, String.valueOf(maxScanTuples));
+            }
+            return jdbcTemplate.query("""
+                SELECT a.id, a.system_id, a.is_shared, a.title, a.summary, a.weight, a.create_time, a.source,
+                       1 - (a.embedding <=> ?::vector) AS similarity
+                FROM hotd_articles a
+                WHERE a.embedding IS NOT NULL
+                  AND a.is_deleted = false
+                  AND a.id <> ?
+                """ + visibility(systemId) + """
+                ORDER BY a.embedding <=> ?::vector
+                LIMIT ?
+                """, (rs, rowNum) -> new SimilarArticleDTO(
+                    rs.getLong("id"),
+                    (Long) rs.getObject("system_id"),
+                    rs.getBoolean("is_shared"),
+                    rs.getString("title"),
+                    rs.getString("summary"),
+                    rs.getBigDecimal("weight"),
+                    rs.getTimestamp("create_time").toLocalDateTime(),
+                    rs.getString("source"),
+                    rs.getDouble("similarity")),
+                searchArgs(literal, excludeId, systemId, limit));
+        });
+        List<SimilarArticleDTO> result = found != null ? List.copyOf(found) : List.of();
+        results.put(key, result);
+        return result;
+    }
+
+    private static Long resolveSystemId(Long systemId) {
+        return systemId != null ? systemId : SystemContext.getSystemId();
+    }
+
+    /**
+     * 与 findBySystemIdAndFilters 相同的可见范围：本系统、全局共享、共享关联；未指定系统时不限制
+     */
+    private static String visibility(Long systemId) {
+        if (systemId == null) {
+            return "";
+        }
+        return """
+              AND (a.system_id = ?
+                   OR (a.is_shared = true AND a.system_id IS NOT NULL)
+                   OR EXISTS (SELECT 1 FROM hotd_article_systems s
+                              WHERE s.article_id = a.id AND s.system_id = ?))
+            """;
+    }
+
+    private static Object[] visibilityArgs(Long articleId, Long systemId) {
+        return systemId == null ? new Object[]{articleId} : new Object[]{articleId, systemId, systemId};
+    }
+
+    private static Object[] searchArgs(String literal, Long excludeId, Long systemId, int limit) {
+        long exclude = excludeId != null ? excludeId : -1L;
+        return systemId == null
+            ? new Object[]{literal, exclude, literal, limit}
+            : new Object[]{literal, exclude, systemId, systemId, literal, limit};
+    }
+
+    private static String vectorHash(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(buffer.array()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.hotdog.service;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * SIMD 点积内核（jdk.incubator.vector）
+ * 只能在 jdk.incubator.vector 模块已加载时实例化，由 VectorMath.create 负责判断
+ */
+public class SimdVectorMath implements VectorMath {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int LANE_BYTES = LANES * Float.BYTES;
+    private static final ByteOrder ORDER = ByteOrder.nativeOrder();
+
+    /**
+     * 分块计算时一次与多少列同时累加（行向量分段只加载一次）
+     */
+    private static final int COLUMN_UNROLL = 4;
+
+    @Override
+    public String name() {
+        return "simd(" + SPECIES.vectorBitSize() + "bit)";
+    }
+
+    @Override
+    public float dot(ByteBuffer data, int a, int b, int dim) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(dim) * Float.BYTES;
+        int off = 0;
+        for (; off < bound; off += LANE_BYTES) {
+            FloatVector va = FloatVector.fromByteBuffer(SPECIES, data, a + off, ORDER);
+            FloatVector vb = FloatVector.fromByteBuffer(SPECIES, data, b + off, ORDER);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; off < dim * Float.BYTES; off += Float.BYTES) {
+            sum += data.getFloat(a + off) * data.getFloat(b + off);
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] data, int a, int b, int dim) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(dim);
+        int k = 0;
+        for (; k < bound; k += LANES) {
+            FloatVector va = FloatVector.fromArray(SPECIES, data, a + k);
+            FloatVector vb = FloatVector.fromArray(SPECIES, data, b + k);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; k < dim; k++) {
+            sum += data[a + k] * data[b + k];
+        }
+        return sum;
+    }
+
+    @Override
+    public void dotMany(ByteBuffer data, int query, int[] offsets, int from, int to, int dim, float[] out) {
+        int j = from;
+        for (; j + COLUMN_UNROLL <= to; j += COLUMN_UNROLL) {
+            dot4(data, query, offsets[j], offsets[j + 1], offsets[j + 2], offsets[j + 3], dim, out, j - from);
+        }
+        for (; j < to; j++) {
+            out[j - from] = dot(data, query, offsets[j], dim);
+        }
+    }
+
+    @Override
+    public void dotBlock(ByteBuffer data, int[] offsets, int rowFrom, int rowTo,
+                         int colFrom, int colTo, int dim, float[] out) {
+        int cols = colTo - colFrom;
+        for (int i = rowFrom; i < rowTo; i++) {
+            int base = (i - rowFrom) * cols;
+            int j = colFrom;
+            for (; j + COLUMN_UNROLL <= colTo; j += COLUMN_UNROLL) {
+                dot4(data, offsets[i], offsets[j], offsets[j + 1], offsets[j + 2], offsets[j + 3],
+                    dim, out, base + j - colFrom);
+            }
+            for (; j < colTo; j++) {
+                out[base + j - colFrom] = dot(data, offsets[i], offsets[j], dim);
+            }
+        }
+    }
+
+    /**
+     * 一个行向量同时与四个列向量求点积，行向量每段只加载一次
+     */
+    private static void dot4(ByteBuffer data, int q, int c0, int c1, int c2, int c3,
+                             int dim, float[] out, int outIndex) {
+        FloatVector acc0 = FloatVector.zero(SPECIES);
+        FloatVector acc1 = FloatVector.zero(SPECIES);
+        FloatVector acc2 = FloatVector.zero(SPECIES);
+        FloatVector acc3 = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(dim) * Float.BYTES;
+        int off = 0;
+        for (; off < bound; off += LANE_BYTES) {
+            FloatVector vq = FloatVector.fromByteBuffer(SPECIES, data, q + off, ORDER);
+            acc0 = vq.fma(FloatVector.fromByteBuffer(SPECIES, data, c0 + off, ORDER), acc0);
+            acc1 = vq.fma(FloatVector.fromByteBuffer(SPECIES, data, c1 + off, ORDER), acc1);
+            acc2 = vq.fma(FloatVector.fromByteBuffer(SPECIES, data, c2 + off, ORDER), acc2);
+            acc3 = vq.fma(FloatVector.fromByteBuffer(SPECIES, data, c3 + off, ORDER), acc3);
+        }
+        float s0 = acc0.reduceLanes(VectorOperators.ADD);
+        float s1 = acc1.reduceLanes(VectorOperators.ADD);
+        float s2 = acc2.reduceLanes(VectorOperators.ADD);
+        float s3 = acc3.reduceLanes(VectorOperators.ADD);
+        for (; off < dim * Float.BYTES; off += Float.BYTES) {
+            float v = data.getFloat(q + off);
+            s0 += v * data.getFloat(c0 + off);
+            s1 += v * data.getFloat(c1 + off);
+            s2 += v * data.getFloat(c2 + off);
+            s3 += v * data.getFloat(c3 + off);
+        }
+        out[outIndex] = s0;
+        out[outIndex + 1] = s1;
+        out[outIndex + 2] = s2;
+        out[outIndex + 3] = s3;
+    }
+}
@@ -0,0 +1,76 @@
+package com.hotdog.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.hotdog.model.System;
+import com.hotdog.repository.SystemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 系统（租户）缓存，按系统代码和ID查询
+ * 有界缓存，写入超过 refresh-seconds 后再被访问时异步刷新（刷新期间仍返回旧值），超过 expire-seconds 未刷新则过期；
+ * 不存在的系统也会缓存（Optional.empty），本节点创建、更新、停用系统时立即失效，其他节点最多延迟 refresh-seconds
+ */
+@Component
+@Slf4j
+public class SystemCache {
+
+    private final SystemRepository systemRepository;
+    private final LoadingCache<String, Optional<System>> byCode;
+    private final LoadingCache<Long, Optional<System>> byId;
+
+    public SystemCache(SystemRepository systemRepository,
+                       @Value("${hotdog.system-cache.maximum-size:10000}") long maximumSize,
+                       @Value("${hotdog.system-cache.refresh-seconds:60}") long refreshSeconds,
+                       @Value("${hotdog.system-cache.expire-seconds:600}") long expireSeconds) {
+        this.systemRepository = systemRepository;
+        this.byCode = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+            .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+            .build(systemRepository::findBySystemCode);
+        this.byId = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+            .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+            .build(systemRepository::findById);
+    }
+
+    public Optional<System> findByCode(String systemCode) {
+        return byCode.get(systemCode);
+    }
+
+    public Optional<System> findById(Long systemId) {
+        return byId.get(systemId);
+    }
+
+    /**
+     * 失效系统的缓存；在事务内调用时提交后再失效一次，避免并发请求在提交前把旧数据重新加载进缓存
+     */
+    public void invalidate(System system) {
+        evict(system);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(system);
+                }
+            });
+        }
+    }
+
+    private void evict(System system) {
+        byCode.invalidate(system.getSystemCode());
+        if (system.getId() != null) {
+            byId.invalidate(system.getId());
+        }
+        log.debug("系统缓存已失效: {} (ID: {})", system.getSystemCode(), system.getId());
+    }
+}
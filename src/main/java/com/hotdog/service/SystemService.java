@@ -2,12 +2,14 @@ package com.hotdog.service;
 
 import com.hotdog.dto.SystemConfigDTO;
 import com.hotdog.dto.SystemCreateDTO;
+import com.hotdog.dto.SystemUpdateDTO;
 import com.hotdog.model.System;
 import com.hotdog.model.SystemConfig;
 import com.hotdog.repository.SystemConfigRepository;
 import com.hotdog.repository.SystemRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +27,13 @@ public class SystemService {
     private final SystemRepository systemRepository;
     private final SystemConfigRepository systemConfigRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final SystemCache systemCache;
+    
+    /**
+     * 启用应用内刷新调度器（RefreshScheduler）时不再创建 pg_cron 任务
+     */
+    @Value("${hotdog.scheduler.enabled:false}")
+    private boolean appSchedulerEnabled;
     
     /**
      * 创建系统
@@ -43,6 +52,7 @@ public class SystemService {
         system.setDescription(dto.getDescription());
         system.setIsActive(true);
         system = systemRepository.save(system);
+        systemCache.invalidate(system);
         
         // 创建系统配置
         SystemConfig config = new SystemConfig();
@@ -57,6 +67,28 @@ public class SystemService {
             config.setClusteringCron(configDTO.getClusteringCron());
             config.setMaxArticlesLimit(configDTO.getMaxArticlesLimit());
             config.setSnapshotLimit(configDTO.getSnapshotLimit());
+            config.setClusteringParallelism(configDTO.getClusteringParallelism());
+            if (configDTO.getHnswEnabled() != null) {
+                config.setHnswEnabled(configDTO.getHnswEnabled());
+            }
+            if (configDTO.getHnswM() != null) {
+                config.setHnswM(configDTO.getHnswM());
+            }
+            if (configDTO.getHnswEfSearch() != null) {
+                config.setHnswEfSearch(configDTO.getHnswEfSearch());
+            }
+            if (configDTO.getRefreshMinNewArticles() != null) {
+                config.setRefreshMinNewArticles(configDTO.getRefreshMinNewArticles());
+            }
+            if (configDTO.getRefreshMinGrowthPct() != null) {
+                config.setRefreshMinGrowthPct(configDTO.getRefreshMinGrowthPct());
+            }
+            if (configDTO.getRefreshMinIntervalSeconds() != null) {
+                config.setRefreshMinIntervalSeconds(configDTO.getRefreshMinIntervalSeconds());
+            }
+            if (configDTO.getRefreshMaxIntervalSeconds() != null) {
+                config.setRefreshMaxIntervalSeconds(configDTO.getRefreshMaxIntervalSeconds());
+            }
         }
         systemConfigRepository.save(config);
         
@@ -90,6 +122,43 @@ public class SystemService {
         return systemRepository.findByIsActiveTrue();
     }
     
+    /**
+     * 更新系统（启用状态变化时同步定时任务）
+     */
+    @Transactional
+    public System updateSystem(Long systemId, SystemUpdateDTO dto) {
+        System system = getSystemById(systemId);
+        boolean activeChanged = dto.getIsActive() != null && !dto.getIsActive().equals(system.getIsActive());
+        if (dto.getSystemName() != null) {
+            system.setSystemName(dto.getSystemName());
+        }
+        if (dto.getDescription() != null) {
+            system.setDescription(dto.getDescription());
+        }
+        if (dto.getIsActive() != null) {
+            system.setIsActive(dto.getIsActive());
+        }
+        system = systemRepository.save(system);
+        systemCache.invalidate(system);
+        
+        if (activeChanged) {
+            setupCronJobsForSystem(systemId);
+        }
+        
+        log.info("更新系统成功: {} (ID: {})", system.getSystemCode(), system.getId());
+        return system;
+    }
+    
+    /**
+     * 停用系统（同时删除定时任务）
+     */
+    @Transactional
+    public System deactivateSystem(Long systemId) {
+        SystemUpdateDTO dto = new SystemUpdateDTO();
+        dto.setIsActive(false);
+        return updateSystem(systemId, dto);
+    }
+    
     /**
      * 更新系统配置
      */
@@ -121,6 +190,30 @@ public class SystemService {
         if (configDTO.getSnapshotLimit() != null) {
             config.setSnapshotLimit(configDTO.getSnapshotLimit());
         }
+        if (configDTO.getClusteringParallelism() != null) {
+            config.setClusteringParallelism(configDTO.getClusteringParallelism());
+        }
+        if (configDTO.getHnswEnabled() != null) {
+            config.setHnswEnabled(configDTO.getHnswEnabled());
+        }
+        if (configDTO.getHnswM() != null) {
+            config.setHnswM(configDTO.getHnswM());
+        }
+        if (configDTO.getHnswEfSearch() != null) {
+            config.setHnswEfSearch(configDTO.getHnswEfSearch());
+        }
+        if (configDTO.getRefreshMinNewArticles() != null) {
+            config.setRefreshMinNewArticles(configDTO.getRefreshMinNewArticles());
+        }
+        if (configDTO.getRefreshMinGrowthPct() != null) {
+            config.setRefreshMinGrowthPct(configDTO.getRefreshMinGrowthPct());
+        }
+        if (configDTO.getRefreshMinIntervalSeconds() != null) {
+            config.setRefreshMinIntervalSeconds(configDTO.getRefreshMinIntervalSeconds());
+        }
+        if (configDTO.getRefreshMaxIntervalSeconds() != null) {
+            config.setRefreshMaxIntervalSeconds(configDTO.getRefreshMaxIntervalSeconds());
+        }
         
         return systemConfigRepository.save(config);
     }
@@ -136,6 +229,15 @@ public class SystemService {
         SystemConfig config = systemConfigRepository.findBySystemId(systemId)
             .orElseThrow(() -> new RuntimeException("系统配置不存在: systemId=" + systemId));
         
+        if (appSchedulerEnabled) {
+            // 由应用内调度器按 hotd_system_configs 调度，删除可能残留的 pg_cron 任务
+            jdbcTemplate.query("SELECT cron.unschedule(jobid) FROM cron.job WHERE jobname IN (?, ?)", rs -> {
+                // 忽略结果集
+            }, "hotd-cluster-" + system.getSystemCode(), "hotd-embed-" + system.getSystemCode());
+            log.info("系统定时任务由应用内调度器执行: {} (cron: {})", system.getSystemCode(), config.getClusteringCron());
+            return;
+        }
+        
         if (!system.getIsActive()) {
             // 系统未启用，删除定时任务
             String jobName = "hotd-cluster-" + system.getSystemCode();
@@ -160,6 +262,10 @@ public class SystemService {
      */
     @Transactional
     public void setupAllCronJobs() {
+        if (appSchedulerEnabled) {
+            log.info("定时任务由应用内调度器执行，跳过 pg_cron 设置");
+            return;
+        }
         jdbcTemplate.execute("SELECT hotd_setup_system_cron_jobs()");
         log.info("为所有系统设置定时任务完成");
     }
@@ -0,0 +1,63 @@
+package com.hotdog.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 向量点积内核（向量已归一化，余弦距离 = 1 - 点积）
+ * 邻域计算几乎全部时间都花在 1024 维点积上，实现分为 SIMD（jdk.incubator.vector）和标量两种，
+ * 由 hotdog.vector.kernel 在启动时选择；ByteBuffer 中的向量为本机字节序，偏移量单位为字节
+ */
+public interface VectorMath {
+
+    /**
+     * 内核名称（simd / scalar），用于日志
+     */
+    String name();
+
+    /**
+     * ByteBuffer 中偏移 a、b 处两个向量的点积
+     */
+    float dot(ByteBuffer data, int a, int b, int dim);
+
+    /**
+     * float 数组中下标 a、b 处两个向量的点积
+     */
+    float dot(float[] data, int a, int b, int dim);
+
+    /**
+     * 一对多：query 与 offsets[from, to) 中每个向量的点积，写入 out[0, to - from)
+     */
+    default void dotMany(ByteBuffer data, int query, int[] offsets, int from, int to, int dim, float[] out) {
+        for (int j = from; j < to; j++) {
+            out[j - from] = dot(data, query, offsets[j], dim);
+        }
+    }
+
+    /**
+     * 多对多分块：行 [rowFrom, rowTo) 与列 [colFrom, colTo) 的点积矩阵，按行优先写入 out
+     */
+    default void dotBlock(ByteBuffer data, int[] offsets, int rowFrom, int rowTo,
+                          int colFrom, int colTo, int dim, float[] out) {
+        int cols = colTo - colFrom;
+        for (int i = rowFrom; i < rowTo; i++) {
+            for (int j = colFrom; j < colTo; j++) {
+                out[(i - rowFrom) * cols + (j - colFrom)] = dot(data, offsets[i], offsets[j], dim);
+            }
+        }
+    }
+
+    /**
+     * 按名称选择内核：simd、scalar 或 auto（jdk.incubator.vector 模块可用时用 SIMD）
+     * SIMD 需要以 --add-modules jdk.incubator.vector 启动 JVM，模块不可用时退回标量实现
+     */
+    static VectorMath create(String kernel) {
+        if ("scalar".equalsIgnoreCase(kernel) || !simdAvailable()) {
+            return new ScalarVectorMath();
+        }
+        return new SimdVectorMath();
+    }
+
+    static boolean simdAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
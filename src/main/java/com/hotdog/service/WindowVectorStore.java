@@ -0,0 +1,421 @@
+package com.hotdog.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 按系统划分的滑动窗口向量存储（堆外内存）
+ * 每个系统的窗口是一组固定槽位：ID、权重、创建时间为基本类型数组，归一化后的向量连续存放在直接内存 ByteBuffer 中，
+ * 槽位按 create_time 组成小顶堆，过期和容量已满时总是淘汰 create_time 最早的文章（与插入顺序无关）；
+ * 增量加载按向量化完成时间（embedded_at）水位线进行，创建很久之后才完成向量化的文章也会在下一次刷新时加入；
+ * 每次增量刷新还会重新读取常驻文章的 id、weight（不读向量），已删除的文章移出窗口、权重原地更新。
+ * 聚类和相似度计算直接读取这块内存，不再每次通过 JDBC 重新拉取整个窗口的向量
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WindowVectorStore {
+
+    private static final int DIM = ArticleWindowLoader.EMBEDDING_DIM;
+    private static final int VECTOR_BYTES = DIM * Float.BYTES;
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /**
+     * 单个 ByteBuffer 最多容纳的向量数（约 52 万篇）
+     */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE / VECTOR_BYTES;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 增量加载时水位线回看的时间（embedded_at 为写回事务的开始时间，事务提交晚于水位线的文章仍能加载到）
+     */
+    @Value("${hotdog.store.reload-overlap-minutes:30}")
+    private int reloadOverlapMinutes;
+
+    /**
+     * 全量重载间隔（同步共享关系等不在增量范围内的变化；删除和权重每次增量刷新都会同步）
+     */
+    @Value("${hotdog.store.full-reload-minutes:60}")
+    private int fullReloadMinutes;
+
+    private final Map<Long, SystemWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 增量刷新系统窗口：加载水位线之后完成向量化的文章，淘汰滑出窗口的文章
+     *
+     * @return 本次新加载的文章数
+     */
+    public int refresh(Long systemId, int hours, int maxLimit) {
+        maxLimit = Math.min(maxLimit, MAX_CAPACITY);
+        SystemWindow window = windows.computeIfAbsent(systemId, id -> new SystemWindow());
+        window.lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (window.hours != hours || window.maxLimit != maxLimit
+                    || now - window.fullLoadedAt >= fullReloadMinutes * 60_000L) {
+                window.reset(hours, maxLimit);
+                window.fullLoadedAt = now;
+            }
+
+            long cutoff = now - hours * 3_600_000L;
+            // 全量加载不限制完成时间；增量加载只取水位线（减去回看时间）之后完成向量化的文章
+            long since = window.loaded ? window.watermark - reloadOverlapMinutes * 60_000L : Long.MIN_VALUE;
+
+            // 先只取ID，向量只为新文章加载
+            String idSql = """
+                SELECT a.id
+                FROM hotd_articles a
+                WHERE a.embedding IS NOT NULL
+                  AND a.create_time >= ?
+                  AND (? OR a.embedded_at >= ?)
+                  AND a.is_deleted = false
+                  AND (
+                    a.system_id = ?
+                    OR (a.is_shared = true AND a.system_id IS NOT NULL)
+                    OR EXISTS (SELECT 1 FROM hotd_article_systems as_rel
+                               WHERE as_rel.article_id = a.id AND as_rel.system_id = ?)
+                  )
+                ORDER BY a.create_time DESC
+                LIMIT ?
+            """;
+            List<Long> fresh = jdbcTemplate.queryForList(idSql, Long.class,
+                new Timestamp(cutoff), !window.loaded, new Timestamp(window.loaded ? since : 0L),
+                systemId, systemId, maxLimit);
+            fresh.removeIf(window.slotById::containsKey);
+
+            int before = window.appended;
+            if (!fresh.isEmpty()) {
+                String vectorSql = """
+                    SELECT a.id, a.weight, a.create_time, a.embedding::text AS embedding
+                    FROM hotd_articles a
+                    WHERE a.id = ANY(?)
+                    ORDER BY a.create_time ASC, a.id ASC
+                """;
+                float[] scratch = new float[DIM];
+                jdbcTemplate.query(con -> {
+                    var ps = con.prepareStatement(vectorSql);
+                    ps.setArray(1, con.createArrayOf("bigint", fresh.toArray()));
+                    return ps;
+                }, rs -> {
+                    float[] vector = ArticleWindowLoader.parseVector(rs.getString("embedding"), scratch);
+                    ArticleWindowLoader.normalize(vector, 0, DIM);
+                    BigDecimal weight = rs.getBigDecimal("weight");
+                    window.append(rs.getLong("id"),
+                        weight == null || weight.signum() == 0 ? 1.0 : weight.doubleValue(),
+                        rs.getTimestamp("create_time").getTime(),
+                        vector);
+                });
+            }
+
+            window.evictBefore(cutoff);
+            if (window.loaded) {
+                syncResident(window, cutoff);
+            }
+            window.loaded = true;
+            window.watermark = now;
+            int loaded = window.appended - before;
+            log.debug("窗口向量刷新: systemId={}, loaded={}, size={}, capacity={}",
+                systemId, loaded, window.size, window.capacity);
+            return loaded;
+        } finally {
+            window.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 重新读取常驻文章的权重（不读向量）：已删除的文章不再返回，移出窗口；权重原地更新
+     */
+    private void syncResident(SystemWindow window, long cutoff) {
+        Long[] resident = window.slotById.keySet().toArray(new Long[0]);
+        if (resident.length == 0) {
+            return;
+        }
+        Map<Long, Double> current = new HashMap<>(resident.length * 2);
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("""
+                SELECT a.id, a.weight
+                FROM hotd_articles a
+                WHERE a.id = ANY(?)
+                  AND a.create_time >= ?
+                  AND a.is_deleted = false
+                """);
+            ps.setArray(1, con.createArrayOf("bigint", resident));
+            ps.setTimestamp(2, new Timestamp(cutoff));
+            return ps;
+        }, rs -> {
+            BigDecimal weight = rs.getBigDecimal("weight");
+            current.put(rs.getLong("id"), weight == null || weight.signum() == 0 ? 1.0 : weight.doubleValue());
+        });
+        for (Long id : resident) {
+            Double weight = current.get(id);
+            if (weight == null) {
+                window.remove(id);
+            } else {
+                window.weights[window.slotById.get(id)] = weight;
+            }
+        }
+    }
+
+    /**
+     * 在读锁内访问系统最近 hours 小时的窗口（按 create_time 降序）
+     * 传给 reader 的 ArticleWindow 直接引用堆外向量，只能在 reader 内部读取向量
+     */
+    public <T> T read(Long systemId, int hours, Function<ArticleWindow, T> reader) {
+        SystemWindow window = windows.get(systemId);
+        if (window == null) {
+            return reader.apply(SystemWindow.EMPTY.view(0));
+        }
+        window.lock.readLock().lock();
+        try {
+            return reader.apply(window.view(System.currentTimeMillis() - hours * 3_600_000L));
+        } finally {
+            window.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 窗口覆盖的小时数（未加载时为 0）
+     */
+    public int coveredHours(Long systemId) {
+        SystemWindow window = windows.get(systemId);
+        return window == null ? 0 : window.hours;
+    }
+
+    /**
+     * 丢弃系统窗口，下次刷新时全量加载
+     */
+    public void evict(Long systemId) {
+        windows.remove(systemId);
+    }
+
+    /**
+     * 单个系统的窗口：槽位存放文章，heap 为按 (create_time, id) 排序的小顶堆（堆顶为最旧的文章），free 为空闲槽位
+     */
+    private static class SystemWindow {
+
+        static final SystemWindow EMPTY = new SystemWindow();
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Map<Long, Integer> slotById = new HashMap<>();
+
+        int hours;
+        int maxLimit;
+        long fullLoadedAt;
+        boolean loaded;
+        long watermark;
+        int appended;
+
+        int capacity;
+        int size;
+        int[] heap = new int[0];
+        int[] heapPos = new int[0];
+        int[] free = new int[0];
+        int freeCount;
+        long[] ids = new long[0];
+        double[] weights = new double[0];
+        long[] createTimes = new long[0];
+        ByteBuffer vectors = ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+        FloatBuffer floats = vectors.asFloatBuffer();
+
+        void reset(int hours, int maxLimit) {
+            this.hours = hours;
+            this.maxLimit = maxLimit;
+            this.loaded = false;
+            this.watermark = 0;
+            this.size = 0;
+            this.slotById.clear();
+            if (capacity > maxLimit) {
+                allocate(Math.min(INITIAL_CAPACITY, maxLimit));
+            }
+            freeCount = 0;
+            for (int slot = capacity - 1; slot >= 0; slot--) {
+                free[freeCount++] = slot;
+            }
+        }
+
+        void append(long id, double weight, long createTime, float[] vector) {
+            if (size == capacity) {
+                if (capacity < maxLimit) {
+                    allocate(Math.min(Math.max(INITIAL_CAPACITY, capacity * 2), maxLimit));
+                } else if (capacity == 0 || older(createTime, id, heap[0])) {
+                    // 窗口已满且比窗口内所有文章都旧，保留较新的文章
+                    return;
+                } else {
+                    evictOldest();
+                }
+            }
+            int slot = free[--freeCount];
+            ids[slot] = id;
+            weights[slot] = weight;
+            createTimes[slot] = createTime;
+            floats.put(slot * DIM, vector);
+            slotById.put(id, slot);
+            heap[size] = slot;
+            siftUp(size++);
+            appended++;
+        }
+
+        /**
+         * 移出指定文章（已删除），槽位放回空闲列表
+         */
+        void remove(long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            free[freeCount++] = slot;
+            int pos = heapPos[slot];
+            int last = heap[--size];
+            if (pos < size) {
+                heap[pos] = last;
+                heapPos[last] = pos;
+                siftDown(pos);
+                siftUp(heapPos[last]);
+            }
+        }
+
+        void evictBefore(long cutoff) {
+            while (size > 0 && createTimes[heap[0]] < cutoff) {
+                evictOldest();
+            }
+        }
+
+        ArticleWindow view(long cutoff) {
+            Integer[] order = new Integer[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                int slot = heap[i];
+                if (createTimes[slot] >= cutoff) {
+                    order[n++] = slot;
+                }
+            }
+            order = Arrays.copyOf(order, n);
+            Arrays.sort(order, (a, b) -> Long.compare(createTimes[b], createTimes[a]));
+
+            long[] outIds = new long[n];
+            double[] outWeights = new double[n];
+            long[] outTimes = new long[n];
+            int[] offsets = new int[n];
+            for (int i = 0; i < n; i++) {
+                int slot = order[i];
+                outIds[i] = ids[slot];
+                outWeights[i] = weights[slot];
+                outTimes[i] = createTimes[slot];
+                offsets[i] = slot * VECTOR_BYTES;
+            }
+            ByteBuffer shared = vectors.duplicate().order(ByteOrder.nativeOrder());
+            return new ArticleWindow(outIds, new String[n], outWeights, outTimes, shared, offsets, DIM);
+        }
+
+        /**
+         * 淘汰堆顶（create_time 最早）的文章，槽位放回空闲列表
+         */
+        private void evictOldest() {
+            int slot = heap[0];
+            slotById.remove(ids[slot]);
+            free[freeCount++] = slot;
+            heap[0] = heap[--size];
+            if (size > 0) {
+                heapPos[heap[0]] = 0;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * (createTime, id) 是否早于槽位 slot 中的文章
+         */
+        private boolean older(long createTime, long id, int slot) {
+            return createTime < createTimes[slot] || (createTime == createTimes[slot] && id < ids[slot]);
+        }
+
+        private void siftUp(int i) {
+            int slot = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!older(createTimes[slot], ids[slot], heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                heapPos[heap[i]] = i;
+                i = parent;
+            }
+            heap[i] = slot;
+            heapPos[slot] = i;
+        }
+
+        private void siftDown(int i) {
+            int slot = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && older(createTimes[heap[child + 1]], ids[heap[child + 1]], heap[child])) {
+                    child++;
+                }
+                if (!older(createTimes[heap[child]], ids[heap[child]], slot)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                heapPos[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = slot;
+            heapPos[slot] = i;
+        }
+
+        /**
+         * 调整容量：扩容时保留已有槽位（槽位号不变），新增槽位加入空闲列表；缩容只在重置（窗口为空）时发生
+         */
+        private void allocate(int newCapacity) {
+            long[] newIds = new long[newCapacity];
+            double[] newWeights = new double[newCapacity];
+            long[] newTimes = new long[newCapacity];
+            ByteBuffer newVectors = ByteBuffer.allocateDirect(newCapacity * VECTOR_BYTES).order(ByteOrder.nativeOrder());
+            int keep = size > 0 ? Math.min(capacity, newCapacity) : 0;
+            System.arraycopy(ids, 0, newIds, 0, keep);
+            System.arraycopy(weights, 0, newWeights, 0, keep);
+            System.arraycopy(createTimes, 0, newTimes, 0, keep);
+            if (keep > 0) {
+                newVectors.put(0, vectors, 0, keep * VECTOR_BYTES);
+            }
+            int[] newFree = new int[newCapacity];
+            int newFreeCount = 0;
+            for (int slot = newCapacity - 1; slot >= keep; slot--) {
+                newFree[newFreeCount++] = slot;
+            }
+            for (int k = 0; k < freeCount; k++) {
+                if (free[k] < keep) {
+                    newFree[newFreeCount++] = free[k];
+                }
+            }
+            ids = newIds;
+            weights = newWeights;
+            createTimes = newTimes;
+            vectors = newVectors;
+            floats = newVectors.asFloatBuffer();
+            heap = Arrays.copyOf(heap, newCapacity);
+            heapPos = Arrays.copyOf(heapPos, newCapacity);
+            free = newFree;
+            freeCount = newFreeCount;
+            capacity = newCapacity;
+        }
+    }
+}
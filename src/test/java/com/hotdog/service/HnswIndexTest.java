@@ -0,0 +1,77 @@
+package com.hotdog.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    private static final float EPS = 0.3f;
+    private static final int MIN_SAMPLES = 3;
+
+    private static ForkJoinPool pool;
+    private final VectorMath math = new ScalarVectorMath();
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * 滑动窗口多次增量同步（每次插入新文章、删除滑出的文章），每次的聚类结果都与精确 DBSCAN 相同
+     */
+    @Test
+    void incrementalSyncsMatchExactDbscan() {
+        // 每步窗口前移，新增量时大时小：新增较少时节点号落在已有的空余容量内，不触发扩容
+        assertSyncsMatchExact(new long[][] {
+            {0, 150}, {40, 300}, {80, 460}, {100, 480}, {130, 500}, {150, 520}, {200, 760}, {260, 780}});
+    }
+
+    /**
+     * 持续大量删除（每步滑出 60 篇）后，修补过的图仍然连通
+     */
+    @Test
+    void steadyTurnoverKeepsGraphConnected() {
+        long[][] steps = new long[8][];
+        for (int step = 0; step < steps.length; step++) {
+            steps[step] = new long[] {step * 60L, step * 60L + 150 + step * 40L};
+        }
+        assertSyncsMatchExact(steps);
+    }
+
+    private void assertSyncsMatchExact(long[][] steps) {
+        float[][] vectors = TestWindows.vectors(1000, 8, 7, 42);
+        HnswIndex index = new HnswIndex(TestWindows.DIM, 8, 200, math);
+        for (int step = 0; step < steps.length; step++) {
+            long from = steps[step][0];
+            long to = steps[step][1];
+            List<Long> ids = new ArrayList<>(LongStream.range(from, to).boxed().toList());
+            ArticleWindow window = TestWindows.window(ids, vectors, null);
+
+            int[] changes = index.sync(window, pool);
+            assertEquals(window.size(), index.size(), "step " + step);
+            if (step > 0) {
+                assertTrue(changes[0] > 0 && changes[1] > 0, "step " + step + " 应同时有插入和删除");
+            }
+
+            int[] approximate = Dbscan.label(index.rangeGraph(window.size(), EPS, 400, pool), MIN_SAMPLES);
+            int[] exact = Dbscan.fit(window, EPS, MIN_SAMPLES, math, pool);
+            assertTrue(TestWindows.samePartition(exact, approximate),
+                "step " + step + ": exact=" + Arrays.toString(exact) + " hnsw=" + Arrays.toString(approximate));
+        }
+    }
+}
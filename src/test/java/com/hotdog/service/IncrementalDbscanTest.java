@@ -0,0 +1,99 @@
+package com.hotdog.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalDbscanTest {
+
+    private static final float EPS = 0.3f;
+    private static final int MIN_SAMPLES = 3;
+
+    private static ForkJoinPool pool;
+    private final VectorMath math = new ScalarVectorMath();
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * 滑动窗口多次同步（插入、过期，已有文章的权重也在变化），每次的标签和权重都与全量 DBSCAN 相同
+     */
+    @Test
+    void incrementalApplyMatchesFullDbscan() {
+        float[][] vectors = TestWindows.vectors(600, 6, 7, 7);
+        IncrementalDbscan dbscan = new IncrementalDbscan(TestWindows.DIM, EPS, MIN_SAMPLES, math);
+        Map<Long, Double> weights = new HashMap<>();
+        Random random = new Random(11);
+
+        for (int step = 0; step < 6; step++) {
+            long from = step * 50L;
+            long to = 200 + step * 70L;
+            List<Long> ids = LongStream.range(from, to).boxed().toList();
+            // 每步都改一部分已在窗口中的文章的权重
+            for (Long id : ids) {
+                if (!weights.containsKey(id) || random.nextInt(4) == 0) {
+                    weights.put(id, 1.0 + random.nextInt(10));
+                }
+            }
+            ArticleWindow window = TestWindows.window(ids, vectors, weights);
+
+            int[] changes = dbscan.apply(window, pool);
+            assertEquals(window.size(), dbscan.size(), "step " + step);
+            if (step > 0) {
+                assertTrue(changes[0] > 0 && changes[1] > 0, "step " + step + " 应同时有新增和过期");
+            }
+
+            int[] labels = new int[dbscan.size()];
+            ArticleWindow exported = dbscan.exportWindow(labels);
+            int[] exact = Dbscan.fit(window, EPS, MIN_SAMPLES, math, pool);
+            assertArrayEquals(window.getIds(), exported.getIds(), "step " + step);
+            assertArrayEquals(window.getWeights(), exported.getWeights(), "step " + step);
+            assertTrue(TestWindows.samePartition(exact, labels),
+                "step " + step + ": exact=" + Arrays.toString(exact) + " incremental=" + Arrays.toString(labels));
+        }
+    }
+
+    /**
+     * 新增超过窗口一半时整体重建（NeighborGraph 并行构建），结果与全量 DBSCAN 相同，之后的增量仍然正确
+     */
+    @Test
+    void largeTurnoverRebuildsState() {
+        float[][] vectors = TestWindows.vectors(600, 6, 7, 13);
+        IncrementalDbscan dbscan = new IncrementalDbscan(TestWindows.DIM, EPS, MIN_SAMPLES, math);
+        long[][] steps = {{0, 200}, {150, 550}, {180, 560}};
+        for (int step = 0; step < steps.length; step++) {
+            List<Long> ids = LongStream.range(steps[step][0], steps[step][1]).boxed().toList();
+            ArticleWindow window = TestWindows.window(ids, vectors, null);
+            int[] changes = dbscan.apply(window, pool);
+            if (step == 1) {
+                assertEquals(window.size(), changes[2], "新增超过一半时应整体重建");
+            }
+
+            int[] labels = new int[dbscan.size()];
+            ArticleWindow exported = dbscan.exportWindow(labels);
+            int[] exact = Dbscan.fit(window, EPS, MIN_SAMPLES, math, pool);
+            assertArrayEquals(window.getIds(), exported.getIds(), "step " + step);
+            assertTrue(TestWindows.samePartition(exact, labels),
+                "step " + step + ": exact=" + Arrays.toString(exact) + " incremental=" + Arrays.toString(labels));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.hotdog.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimdVectorMathTest {
+
+    /**
+     * 维度覆盖：小于、等于、不是 SIMD 通道数整数倍（loopBound 之后的尾部循环）以及生产使用的 1024 维
+     */
+    private static final int[] DIMS = {1, 3, 7, 8, 15, 17, 33, 100, 1023, 1024};
+
+    private static VectorMath simd;
+    private final VectorMath scalar = new ScalarVectorMath();
+
+    @BeforeAll
+    static void createKernel() {
+        assertTrue(VectorMath.simdAvailable(), "测试需以 --add-modules jdk.incubator.vector 运行（见 pom.xml surefire argLine）");
+        simd = new SimdVectorMath();
+    }
+
+    /**
+     * 单个点积：ByteBuffer 中偏移量不从 0 开始、float 数组中下标不对齐
+     */
+    @Test
+    void dotMatchesScalar() {
+        Random random = new Random(1);
+        for (int dim : DIMS) {
+            int n = 5;
+            int[] offsets = offsets(n, dim, 3);
+            ByteBuffer data = buffer(offsets, dim, random);
+            float[] array = new float[n * dim + 1];
+            for (int i = 1; i < array.length; i++) {
+                array[i] = random.nextFloat() * 2 - 1;
+            }
+            for (int a = 0; a < n; a++) {
+                for (int b = 0; b < n; b++) {
+                    assertEquals(scalar.dot(data, offsets[a], offsets[b], dim),
+                        simd.dot(data, offsets[a], offsets[b], dim), tolerance(dim), "dim=" + dim);
+                    assertEquals(scalar.dot(array, 1 + a * dim, 1 + b * dim, dim),
+                        simd.dot(array, 1 + a * dim, 1 + b * dim, dim), tolerance(dim), "dim=" + dim);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一对多：列区间 [from, to) 的起点和长度都不是 4 的倍数（dot4 展开之后的尾部列）
+     */
+    @Test
+    void dotManyMatchesScalar() {
+        Random random = new Random(2);
+        for (int dim : DIMS) {
+            int n = 13;
+            int[] offsets = offsets(n, dim, 1);
+            ByteBuffer data = buffer(offsets, dim, random);
+            for (int from = 0; from < 4; from++) {
+                for (int to = from; to <= n; to++) {
+                    float[] expected = new float[n];
+                    float[] actual = new float[n];
+                    scalar.dotMany(data, offsets[2], offsets, from, to, dim, expected);
+                    simd.dotMany(data, offsets[2], offsets, from, to, dim, actual);
+                    for (int j = 0; j < to - from; j++) {
+                        assertEquals(expected[j], actual[j], tolerance(dim),
+                            "dim=" + dim + ", from=" + from + ", to=" + to + ", j=" + j);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 分块：行列区间都不从 0 开始，列数不是 4 的倍数，结果按 (i - rowFrom) * cols + (j - colFrom) 存放
+     */
+    @Test
+    void dotBlockMatchesScalar() {
+        Random random = new Random(3);
+        int[][] ranges = {{0, 1, 0, 1}, {1, 4, 2, 9}, {3, 10, 0, 7}, {2, 11, 5, 11}, {0, 11, 0, 11}};
+        for (int dim : DIMS) {
+            int n = 11;
+            int[] offsets = offsets(n, dim, 2);
+            ByteBuffer data = buffer(offsets, dim, random);
+            for (int[] range : ranges) {
+                int size = (range[1] - range[0]) * (range[3] - range[2]);
+                float[] expected = new float[size];
+                float[] actual = new float[size];
+                scalar.dotBlock(data, offsets, range[0], range[1], range[2], range[3], dim, expected);
+                simd.dotBlock(data, offsets, range[0], range[1], range[2], range[3], dim, actual);
+                for (int k = 0; k < size; k++) {
+                    assertEquals(expected[k], actual[k], tolerance(dim), "dim=" + dim + ", k=" + k);
+                }
+            }
+        }
+    }
+
+    /**
+     * 第 i 个向量的字节偏移：前面留 lead 个 float 的空隙，向量之间顺序排列但顺序打乱
+     */
+    private static int[] offsets(int n, int dim, int lead) {
+        int[] offsets = new int[n];
+        for (int i = 0; i < n; i++) {
+            offsets[i] = (lead + ((i * 7) % n) * dim) * Float.BYTES;
+        }
+        return offsets;
+    }
+
+    private static ByteBuffer buffer(int[] offsets, int dim, Random random) {
+        ByteBuffer data = ByteBuffer.allocateDirect((offsets.length * dim + 8) * Float.BYTES).order(ByteOrder.nativeOrder());
+        for (int offset : offsets) {
+            for (int k = 0; k < dim; k++) {
+                data.putFloat(offset + k * Float.BYTES, random.nextFloat() * 2 - 1);
+            }
+        }
+        return data;
+    }
+
+    private static float tolerance(int dim) {
+        return 1e-5f * dim + 1e-6f;
+    }
+}
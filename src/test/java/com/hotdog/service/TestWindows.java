@@ -0,0 +1,116 @@
+package com.hotdog.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 测试用窗口构造：若干簇中心附近的归一化向量，文章ID即创建时间（ID 越大越新）
+ */
+final class TestWindows {
+
+    static final int DIM = 32;
+
+    private TestWindows() {
+    }
+
+    /**
+     * 生成 count 篇文章的向量，分布在 clusters 个簇中心附近，每 noiseEvery 篇混入一个随机噪声点
+     */
+    static float[][] vectors(int count, int clusters, int noiseEvery, long seed) {
+        Random random = new Random(seed);
+        float[][] centers = new float[clusters][];
+        for (int c = 0; c < clusters; c++) {
+            centers[c] = randomUnit(random);
+        }
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            if (noiseEvery > 0 && i % noiseEvery == 0) {
+                vectors[i] = randomUnit(random);
+                continue;
+            }
+            float[] center = centers[i % clusters];
+            float[] v = new float[DIM];
+            for (int k = 0; k < DIM; k++) {
+                v[k] = center[k] + (float) random.nextGaussian() * 0.08f;
+            }
+            vectors[i] = normalize(v);
+        }
+        return vectors;
+    }
+
+    /**
+     * 由文章ID（下标即 vectors 的下标）组成窗口，按 create_time 降序排列；weights 为空时权重取 1
+     */
+    static ArticleWindow window(Collection<Long> ids, float[][] vectors, Map<Long, Double> weights) {
+        long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().toArray();
+        int n = sorted.length;
+        long[] outIds = new long[n];
+        double[] outWeights = new double[n];
+        long[] times = new long[n];
+        int[] offsets = new int[n];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(n, 1) * DIM * Float.BYTES).order(ByteOrder.nativeOrder());
+        for (int row = 0; row < n; row++) {
+            long id = sorted[n - 1 - row];
+            outIds[row] = id;
+            outWeights[row] = weights != null ? weights.getOrDefault(id, 1.0) : 1.0;
+            times[row] = id;
+            offsets[row] = row * DIM * Float.BYTES;
+            for (int k = 0; k < DIM; k++) {
+                buffer.putFloat(offsets[row] + k * Float.BYTES, vectors[(int) id][k]);
+            }
+        }
+        return new ArticleWindow(outIds, new String[n], outWeights, times, buffer, offsets, DIM);
+    }
+
+    /**
+     * 两组标签是否表示同一个划分（簇编号可以不同，噪声点必须一致）
+     */
+    static boolean samePartition(int[] a, int[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        int[] mapAB = new int[a.length + 1];
+        int[] mapBA = new int[b.length + 1];
+        Arrays.fill(mapAB, Integer.MIN_VALUE);
+        Arrays.fill(mapBA, Integer.MIN_VALUE);
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] == Dbscan.NOISE) != (b[i] == Dbscan.NOISE)) {
+                return false;
+            }
+            if (a[i] == Dbscan.NOISE) {
+                continue;
+            }
+            if (mapAB[a[i]] == Integer.MIN_VALUE && mapBA[b[i]] == Integer.MIN_VALUE) {
+                mapAB[a[i]] = b[i];
+                mapBA[b[i]] = a[i];
+            } else if (mapAB[a[i]] != b[i] || mapBA[b[i]] != a[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static float[] randomUnit(Random random) {
+        float[] v = new float[DIM];
+        for (int k = 0; k < DIM; k++) {
+            v[k] = (float) random.nextGaussian();
+        }
+        return normalize(v);
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) {
+            norm += x * x;
+        }
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int k = 0; k < v.length; k++) {
+            v[k] *= inv;
+        }
+        return v;
+    }
+}